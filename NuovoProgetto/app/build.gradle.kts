@@ -33,6 +33,14 @@ application {
     mainClass.set("it.unicam.cs.mpgc.jbudget126603.view.MainApp")
 }
 
+tasks.register<JavaExec>("cli") {
+    group = "application"
+    description = "Runs the headless command-line interface."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("it.unicam.cs.mpgc.jbudget126603.cli.BudgetCli")
+    standardInput = System.`in`
+}
+
 tasks.named<Test>("test") {
     useJUnitPlatform()
 }
@@ -0,0 +1,455 @@
+package it.unicam.cs.mpgc.jbudget126603.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.controller.LedgerSnapshot;
+import it.unicam.cs.mpgc.jbudget126603.controller.TransactionQuery;
+import it.unicam.cs.mpgc.jbudget126603.controller.TransactionStatistics;
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.RecurrenceType;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server exposing a ledger as JSON to other local tools,
+ * listening on the loopback interface only. Every request runs on its own virtual thread.
+ * <p>
+ * Reads (listing, balances, statistics) are answered from the {@link LedgerSnapshot}
+ * of the controller and never take its lock, so they scale with the number of requests
+ * and are not slowed down by writers. Writes go through a {@link WriteBatcher}:
+ * those arriving together are applied as one batch, saved once.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code GET /api/transactions?from=&to=&tag=&type=&text=&offset=&limit=} lists transactions;</li>
+ *     <li>{@code POST /api/transactions} adds a transaction (409 if the ID is used);</li>
+ *     <li>{@code GET}, {@code PUT} and {@code DELETE /api/transactions/{id}} read, replace and remove one;</li>
+ *     <li>{@code GET /api/balance?from=&to=&tag=} returns the balance;</li>
+ *     <li>{@code GET /api/statistics?from=&to=&tag=&type=} returns totals and amount statistics;</li>
+ *     <li>{@code GET /api/tags} lists the tags.</li>
+ * </ul>
+ * Dates are ISO dates, tags are given by ID or name. A transaction is written as
+ * {@code {"id", "date", "amount", "type", "description", "tags": [{"id", "name"}], "recurrence"}};
+ * when one is sent, "date" and "amount" are required, "tags" is a list of IDs or names,
+ * and without "type" a negative amount is an expense.
+ * <p>
+ * A change that was applied, and is visible to readers, but could not be written to disk
+ * is answered with its usual success status and the header {@code X-Ledger-Saved: false};
+ * it is written by the next successful save, so it must not be sent again.
+ */
+public final class ApiServer implements AutoCloseable {
+
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 8765;
+    /** Default number of transactions per page. */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    /** Largest page that can be requested. */
+    public static final int MAX_PAGE_SIZE = 10_000;
+
+    private static final int MAX_BATCH_SIZE = 512;
+    private static final int BACKLOG = 4096;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final String PREFIX = "/api/transactions";
+    private static final String SAVED_HEADER = "X-Ledger-Saved";
+
+    private final AppController controller;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final WriteBatcher writes;
+
+    /**
+     * Creates a server for a ledger; it accepts requests once {@link #start() started}.
+     *
+     * @param controller the controller of the ledger
+     * @param port       the port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ApiServer(AppController controller, int port) throws IOException {
+        this.controller = controller;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.writes = new WriteBatcher(controller, MAX_BATCH_SIZE);
+        server.setExecutor(executor);
+        server.createContext(PREFIX, exchange -> handle(exchange, this::transactions));
+        server.createContext("/api/balance", exchange -> handle(exchange, this::balance));
+        server.createContext("/api/statistics", exchange -> handle(exchange, this::statistics));
+        server.createContext("/api/tags", exchange -> handle(exchange, this::tags));
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, lets those running finish for up to a second
+     * and applies the changes already submitted.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        writes.close();
+        executor.shutdown();
+    }
+
+    private void handle(HttpExchange exchange, Route route) throws IOException {
+        try {
+            Response response;
+            try {
+                checkPath(exchange);
+                response = route.handle(exchange);
+            } catch (ApiException e) {
+                response = error(e.status, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                response = error(400, e.getMessage());
+            } catch (IllegalStateException e) {
+                response = error(503, e.getMessage());
+            } catch (RuntimeException e) {
+                response = error(500, String.valueOf(e.getMessage()));
+            }
+            send(exchange, response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Rejects the paths a context receives only because they start with its path, such as
+     * /api/transactionsfoo; only the transactions have sub-paths, naming one transaction.
+     */
+    private static void checkPath(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        String context = exchange.getHttpContext().getPath();
+        if (path.equals(context) || context.equals(PREFIX) && path.startsWith(PREFIX + "/")) return;
+        throw new ApiException(404, "Not found: " + path);
+    }
+
+    private Response transactions(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String id = path.length() > PREFIX.length() + 1 ? path.substring(PREFIX.length() + 1) : null;
+        String method = exchange.getRequestMethod();
+        if (id == null) {
+            return switch (method) {
+                case "GET" -> list(parameters(exchange));
+                case "POST" -> create(readBody(exchange));
+                default -> throw new ApiException(405, "Method not allowed: " + method);
+            };
+        }
+        return switch (method) {
+            case "GET" -> controller.snapshot().getTransactionById(id)
+                    .map(t -> new Response(200, toJson(t)))
+                    .orElseThrow(() -> notFound(id));
+            case "PUT" -> replace(id, readBody(exchange));
+            case "DELETE" -> {
+                WriteBatcher.Outcome<Boolean> outcome = writes.submit(c -> c.removeTransaction(id));
+                if (!outcome.value()) throw notFound(id);
+                yield new Response(204, null, outcome);
+            }
+            default -> throw new ApiException(405, "Method not allowed: " + method);
+        };
+    }
+
+    private Response list(Map<String, String> parameters) {
+        List<TransactionBase> matches = query(parameters);
+        int offset = integer(parameters, "offset", 0);
+        int limit = Math.min(integer(parameters, "limit", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+        List<Object> page = new ArrayList<>();
+        for (int i = offset; i < Math.min(matches.size(), offset + limit); i++) page.add(toJson(matches.get(i)));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("total", matches.size());
+        body.put("offset", offset);
+        body.put("transactions", page);
+        return new Response(200, body);
+    }
+
+    private Response create(Map<String, Object> body) {
+        Object id = body.get("id");
+        TransactionBase transaction = fromJson(body, id == null ? UUID.randomUUID().toString() : id.toString());
+        WriteBatcher.Outcome<Boolean> outcome = writes.submit(c -> c.addTransaction(transaction));
+        if (!outcome.value()) {
+            throw new ApiException(409, "A transaction with ID " + transaction.id() + " already exists");
+        }
+        return new Response(201, toJson(transaction), outcome);
+    }
+
+    private Response replace(String id, Map<String, Object> body) {
+        TransactionBase transaction = fromJson(body, id);
+        WriteBatcher.Outcome<Boolean> outcome = writes.submit(c -> c.updateTransaction(id, transaction));
+        if (!outcome.value()) throw notFound(id);
+        return new Response(200, toJson(transaction), outcome);
+    }
+
+    private Response balance(HttpExchange exchange) {
+        requireGet(exchange);
+        Map<String, String> parameters = parameters(exchange);
+        DateRange range = range(parameters);
+        Tag tag = tag(parameters);
+        List<TransactionBase> transactions = controller.snapshot().transactions();
+        Money balance = tag == null
+                ? controller.getBudgetController().calculateBalanceByPeriod(transactions, range)
+                : controller.getBudgetController().calculateBalanceByPeriodAndTag(transactions, range, tag);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("from", range.start() == null ? null : range.start().toString());
+        body.put("to", range.end() == null ? null : range.end().toString());
+        body.put("tag", tag == null ? null : tag.id());
+        body.put("balance", balance.value());
+        return new Response(200, body);
+    }
+
+    private Response statistics(HttpExchange exchange) {
+        requireGet(exchange);
+        TransactionStatistics statistics = controller.getStatisticsController()
+                .generateStatistics(query(parameters(exchange)));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("count", statistics.count());
+        body.put("incomeExpense", new TreeMap<>(statistics.incomeExpense()));
+        body.put("amountStatistics", statistics.count() == 0 ? Map.of() : new TreeMap<>(statistics.amountStatistics()));
+        body.put("totalsByTag", new TreeMap<>(statistics.totalsByTag()));
+        body.put("countByTag", new TreeMap<>(statistics.countByTag()));
+        return new Response(200, body);
+    }
+
+    private Response tags(HttpExchange exchange) {
+        requireGet(exchange);
+        List<Object> tags = new ArrayList<>();
+        for (Tag tag : controller.getAllTags()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", tag.id());
+            json.put("name", tag.name());
+            json.put("parentId", tag.parentId());
+            tags.add(json);
+        }
+        return new Response(200, tags);
+    }
+
+    private List<TransactionBase> query(Map<String, String> parameters) {
+        Tag tag = tag(parameters);
+        String type = parameters.get("type");
+        TransactionQuery query = TransactionQuery.builder()
+                .range(range(parameters))
+                .tag(tag == null ? null : tag.id())
+                .type(type == null ? null : Type.valueOf(type.toUpperCase(Locale.ROOT)))
+                .text(parameters.get("text"))
+                .build();
+        return controller.snapshot().query(query, controller.getTagController().getTagTree());
+    }
+
+    private TransactionBase fromJson(Map<String, Object> json, String id) {
+        try {
+            LocalDate date = LocalDate.parse(string(json, "date", true));
+            BigDecimal amount = Json.number(string(json, "amount", true));
+            String typeText = string(json, "type", false);
+            Type type = typeText == null
+                    ? (amount.signum() < 0 ? Type.EXPENSE : Type.INCOME)
+                    : Type.valueOf(typeText.toUpperCase(Locale.ROOT));
+            String recurrenceText = string(json, "recurrence", false);
+            RecurrenceType recurrence = recurrenceText == null
+                    ? null : RecurrenceType.valueOf(recurrenceText.toUpperCase(Locale.ROOT));
+            String description = string(json, "description", false);
+
+            List<Tag> tags = new ArrayList<>();
+            Object tagList = json.get("tags");
+            if (tagList != null) {
+                if (!(tagList instanceof List<?> keys)) throw new IllegalArgumentException("tags must be a list");
+                for (Object key : keys) tags.add(tag(String.valueOf(key)));
+            }
+            return new Transaction(id, new Money(amount.abs()), date, description == null ? "" : description,
+                    type, tags, recurrence);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + e.getParsedString(), e);
+        }
+    }
+
+    private static Map<String, Object> toJson(TransactionBase t) {
+        List<Object> tags = new ArrayList<>();
+        for (Tag tag : t.tags()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", tag.id());
+            json.put("name", tag.name());
+            tags.add(json);
+        }
+        RecurrenceType recurrence = t instanceof Transaction tx ? tx.recurrenceType() : null;
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", t.id());
+        json.put("date", t.date().toString());
+        json.put("amount", t.amount().value());
+        json.put("type", t.type().name());
+        json.put("description", t.description());
+        json.put("tags", tags);
+        json.put("recurrence", recurrence == null ? null : recurrence.name());
+        return json;
+    }
+
+    private static String string(Map<String, Object> json, String name, boolean required) {
+        Object value = json.get(name);
+        if (value == null && required) throw new IllegalArgumentException("Missing " + name);
+        return value == null ? null : value.toString();
+    }
+
+    private DateRange range(Map<String, String> parameters) {
+        try {
+            String from = parameters.get("from");
+            String to = parameters.get("to");
+            return new DateRange(from == null ? null : LocalDate.parse(from), to == null ? null : LocalDate.parse(to));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + e.getParsedString(), e);
+        }
+    }
+
+    private Tag tag(Map<String, String> parameters) {
+        String key = parameters.get("tag");
+        return key == null ? null : tag(key);
+    }
+
+    private Tag tag(String key) {
+        return controller.getTagController().getTagById(key)
+                .or(() -> controller.getAllTags().stream().filter(t -> t.name().equalsIgnoreCase(key)).findFirst())
+                .orElseThrow(() -> new IllegalArgumentException("Unknown tag: " + key));
+    }
+
+    private static int integer(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        if (value == null) return defaultValue;
+        try {
+            int n = Integer.parseInt(value);
+            if (n < 0) throw new IllegalArgumentException(name + " cannot be negative");
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value, e);
+        }
+    }
+
+    private static void requireGet(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw new ApiException(405, "Method not allowed: " + exchange.getRequestMethod());
+        }
+    }
+
+    private static Map<String, String> parameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return parameters;
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            if (!value.isEmpty()) parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) throw new ApiException(413, "Request body too large");
+        Object json = Json.parse(new String(bytes, StandardCharsets.UTF_8));
+        if (!(json instanceof Map)) throw new IllegalArgumentException("Expected a JSON object");
+        return (Map<String, Object>) json;
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        if (!response.saved) exchange.getResponseHeaders().set(SAVED_HEADER, "false");
+        if (response.body == null) {
+            exchange.sendResponseHeaders(response.status, -1);
+            return;
+        }
+        byte[] bytes = Json.write(response.body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, Map.of("error", message == null ? "" : message));
+    }
+
+    private static ApiException notFound(String id) {
+        return new ApiException(404, "No transaction with ID " + id);
+    }
+
+    /**
+     * Handler of the requests to one context.
+     */
+    @FunctionalInterface
+    private interface Route {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Status and JSON body (null for none) of a response, and whether the change it reports was saved.
+     */
+    private static final class Response {
+        private final int status;
+        private final Object body;
+        private final boolean saved;
+
+        private Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+            this.saved = true;
+        }
+
+        private Response(int status, Object body, WriteBatcher.Outcome<?> outcome) {
+            this.status = status;
+            this.body = body;
+            this.saved = outcome.saveFailure() == null;
+        }
+    }
+
+    /**
+     * A failure answered with a specific HTTP status.
+     */
+    private static final class ApiException extends RuntimeException {
+        private final int status;
+
+        private ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
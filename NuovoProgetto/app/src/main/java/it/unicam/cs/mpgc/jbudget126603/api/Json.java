@@ -0,0 +1,282 @@
+package it.unicam.cs.mpgc.jbudget126603.api;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON (RFC 8259) writer and parser for the HTTP API.
+ * Values are represented by plain Java objects: {@link Map} for objects (keys in order),
+ * {@link List} for arrays, {@link String}, {@link BigDecimal} for numbers
+ * (other {@link Number}s are accepted when writing), {@link Boolean} and null.
+ */
+public final class Json {
+
+    /**
+     * Deepest nesting of objects and arrays accepted by {@link #parse(String)}.
+     */
+    static final int MAX_DEPTH = 64;
+
+    /**
+     * Largest number of digits, and largest scale in either direction, accepted for a number.
+     * Bounding the scale keeps exponents such as {@code 1e999999999} from turning into huge values
+     * when the number is later rounded or compared.
+     */
+    static final int MAX_NUMBER_DIGITS = 40;
+
+    private Json() {
+    }
+
+    /**
+     * Formats a value as JSON.
+     *
+     * @param value the value
+     * @return the JSON text
+     * @throws IllegalArgumentException if the value, or a value inside it, cannot be represented
+     */
+    public static String write(Object value) {
+        StringBuilder out = new StringBuilder();
+        write(value, out);
+        return out.toString();
+    }
+
+    private static void write(Object value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof String s) {
+            writeString(s, out);
+        } else if (value instanceof BigDecimal d) {
+            out.append(d.toPlainString());
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) out.append("null");
+            else out.append(BigDecimal.valueOf(d).toPlainString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+        } else if (value instanceof Map<?, ?> map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) out.append(',');
+                first = false;
+                writeString(String.valueOf(entry.getKey()), out);
+                out.append(':');
+                write(entry.getValue(), out);
+            }
+            out.append('}');
+        } else if (value instanceof Collection<?> collection) {
+            out.append('[');
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) out.append(',');
+                first = false;
+                write(element, out);
+            }
+            out.append(']');
+        } else {
+            throw new IllegalArgumentException("Cannot write " + value.getClass().getName() + " as JSON");
+        }
+    }
+
+    private static void writeString(String s, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Parses a JSON text.
+     *
+     * @param text the JSON text
+     * @return the value
+     * @throws IllegalArgumentException if the text is not valid JSON
+     */
+    public static Object parse(String text) {
+        Parser parser = new Parser(text);
+        Object value = parser.value();
+        parser.skipWhitespace();
+        if (parser.position < text.length()) throw parser.error("Unexpected text after the value");
+        return value;
+    }
+
+    /**
+     * Parses a decimal number, as written in JSON or in a string field, within the limits of the parser.
+     *
+     * @param text the number
+     * @return the value
+     * @throws IllegalArgumentException if the text is not a number or has more than
+     *                                  {@link #MAX_NUMBER_DIGITS} digits or decimal places
+     */
+    static BigDecimal number(String text) {
+        // Longer texts cannot be in range; refuse them before BigDecimal parses them.
+        if (text.length() > 2 * MAX_NUMBER_DIGITS) throw new IllegalArgumentException("Number out of range");
+        BigDecimal value;
+        try {
+            value = new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number");
+        }
+        if (value.precision() > MAX_NUMBER_DIGITS || Math.abs(value.scale()) > MAX_NUMBER_DIGITS) {
+            throw new IllegalArgumentException("Number out of range");
+        }
+        return value;
+    }
+
+    /**
+     * Recursive descent parser over the text.
+     */
+    private static final class Parser {
+        private final String text;
+        private int position;
+        private int depth;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            if (position == text.length()) throw error("Unexpected end of the text");
+            char c = text.charAt(position);
+            return switch (c) {
+                case '{' -> object();
+                case '[' -> array();
+                case '"' -> string();
+                case 't' -> literal("true", Boolean.TRUE);
+                case 'f' -> literal("false", Boolean.FALSE);
+                case 'n' -> literal("null", null);
+                default -> {
+                    if (c == '-' || (c >= '0' && c <= '9')) yield number();
+                    throw error("Unexpected character '" + c + "'");
+                }
+            };
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            enter();
+            skipWhitespace();
+            if (consume('}')) {
+                depth--;
+                return map;
+            }
+            do {
+                skipWhitespace();
+                if (position == text.length() || text.charAt(position) != '"') throw error("Expected a key");
+                String key = string();
+                skipWhitespace();
+                if (!consume(':')) throw error("Expected ':'");
+                map.put(key, value());
+                skipWhitespace();
+            } while (consume(','));
+            if (!consume('}')) throw error("Expected ',' or '}'");
+            depth--;
+            return map;
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            enter();
+            skipWhitespace();
+            if (consume(']')) {
+                depth--;
+                return list;
+            }
+            do {
+                list.add(value());
+                skipWhitespace();
+            } while (consume(','));
+            if (!consume(']')) throw error("Expected ',' or ']'");
+            depth--;
+            return list;
+        }
+
+        private void enter() {
+            if (++depth > MAX_DEPTH) throw error("Too deeply nested");
+            position++;
+        }
+
+        private String string() {
+            StringBuilder s = new StringBuilder();
+            position++;
+            while (true) {
+                if (position == text.length()) throw error("Unterminated string");
+                char c = text.charAt(position++);
+                if (c == '"') return s.toString();
+                if (c != '\\') {
+                    s.append(c);
+                    continue;
+                }
+                if (position == text.length()) throw error("Unterminated string");
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> s.append(escaped);
+                    case 'b' -> s.append('\b');
+                    case 'f' -> s.append('\f');
+                    case 'n' -> s.append('\n');
+                    case 'r' -> s.append('\r');
+                    case 't' -> s.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) throw error("Invalid escape");
+                        try {
+                            s.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid escape");
+                        }
+                        position += 4;
+                    }
+                    default -> throw error("Invalid escape");
+                }
+            }
+        }
+
+        private BigDecimal number() {
+            int start = position;
+            while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) position++;
+            try {
+                return Json.number(text.substring(start, position));
+            } catch (IllegalArgumentException e) {
+                position = start;
+                throw error(e.getMessage());
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!text.startsWith(word, position)) throw error("Unexpected character '" + text.charAt(position) + "'");
+            position += word.length();
+            return value;
+        }
+
+        private boolean consume(char c) {
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && " \t\r\n".indexOf(text.charAt(position)) >= 0) position++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position);
+        }
+    }
+}
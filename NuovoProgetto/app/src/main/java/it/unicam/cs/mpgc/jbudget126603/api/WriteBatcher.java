@@ -0,0 +1,177 @@
+package it.unicam.cs.mpgc.jbudget126603.api;
+
+import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Funnels the changes requested by many threads through a single writer thread,
+ * which applies the changes waiting in the queue together, as one
+ * {@link AppController#runBatch(Runnable) batch}: under load, the ledger is saved
+ * and a new snapshot is published once per batch instead of once per request.
+ * A caller waits until its batch is complete, so the change is saved and visible
+ * to readers when {@link #submit(Function)} returns.
+ * If saving the batch fails, its changes stay applied, as in the controller,
+ * and every caller is told so by its {@link Outcome}.
+ */
+final class WriteBatcher implements AutoCloseable {
+
+    private static final Pending<Void> STOP = new Pending<>(c -> null);
+
+    private final AppController controller;
+    private final int maxBatchSize;
+    private final BlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private boolean closed;
+
+    /**
+     * Creates a batcher and starts its writer thread.
+     *
+     * @param controller   the controller receiving the changes
+     * @param maxBatchSize the maximum number of changes applied together
+     */
+    WriteBatcher(AppController controller, int maxBatchSize) {
+        this.controller = controller;
+        this.maxBatchSize = maxBatchSize;
+        this.writer = new Thread(this::drain, "api-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Applies a change in the next batch and waits for the batch to complete.
+     *
+     * @param change the change, calling the methods of the controller
+     * @param <T>    the type of the result of the change
+     * @return the result of the change, and whether it was written to disk
+     * @throws IllegalStateException if the batcher is closed
+     */
+    <T> Outcome<T> submit(Function<AppController, T> change) {
+        Pending<T> pending = new Pending<>(change);
+        synchronized (this) {
+            // nothing is queued after the stop request
+            if (closed) throw new IllegalStateException("The server is shutting down");
+            queue.add(pending);
+        }
+        try {
+            return pending.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private void drain() {
+        List<Pending<?>> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - 1);
+                // the stop request is the last change ever queued
+                boolean stop = batch.remove(STOP);
+                try {
+                    controller.runBatch(() -> batch.forEach(p -> p.apply(controller)));
+                    batch.forEach(p -> p.complete(null));
+                } catch (UncheckedIOException e) {
+                    // only the save failed: the changes are applied and visible to readers
+                    batch.forEach(p -> p.complete(e));
+                } catch (RuntimeException e) {
+                    batch.forEach(p -> p.result.completeExceptionally(e));
+                }
+                batch.clear();
+                if (stop) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        queue.forEach(Pending::refuse);
+    }
+
+    /**
+     * Stops accepting changes, applies those already queued and waits for the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            queue.add(STOP);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The result of a change applied in a batch.
+     *
+     * @param <T> the type of the result
+     */
+    static final class Outcome<T> {
+        private final T value;
+        private final UncheckedIOException saveFailure;
+
+        private Outcome(T value, UncheckedIOException saveFailure) {
+            this.value = value;
+            this.saveFailure = saveFailure;
+        }
+
+        /**
+         * Returns the result of the change.
+         *
+         * @return the result
+         */
+        T value() {
+            return value;
+        }
+
+        /**
+         * Returns why the batch of the change could not be written to disk.
+         *
+         * @return the failure of the save, or null if the change was saved
+         */
+        UncheckedIOException saveFailure() {
+            return saveFailure;
+        }
+    }
+
+    /**
+     * A change waiting in the queue, with the future completed once its batch is.
+     */
+    private static final class Pending<T> {
+        private final Function<AppController, T> change;
+        private final CompletableFuture<Outcome<T>> result = new CompletableFuture<>();
+        private T value;
+        private RuntimeException failure;
+
+        private Pending(Function<AppController, T> change) {
+            this.change = change;
+        }
+
+        private void apply(AppController controller) {
+            try {
+                value = change.apply(controller);
+            } catch (RuntimeException e) {
+                // a failed change does not abort the others of the batch
+                failure = e;
+            }
+        }
+
+        private void complete(UncheckedIOException saveFailure) {
+            if (failure != null) result.completeExceptionally(failure);
+            else result.complete(new Outcome<>(value, saveFailure));
+        }
+
+        private void refuse() {
+            result.completeExceptionally(new IllegalStateException("The server is shutting down"));
+        }
+    }
+}
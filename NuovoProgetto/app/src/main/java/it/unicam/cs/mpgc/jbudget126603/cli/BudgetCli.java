@@ -0,0 +1,338 @@
+package it.unicam.cs.mpgc.jbudget126603.cli;
+
+import it.unicam.cs.mpgc.jbudget126603.api.ApiServer;
+import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.controller.BudgetController;
+import it.unicam.cs.mpgc.jbudget126603.controller.ImportResult;
+import it.unicam.cs.mpgc.jbudget126603.controller.LedgerRegistry;
+import it.unicam.cs.mpgc.jbudget126603.controller.TransactionQuery;
+import it.unicam.cs.mpgc.jbudget126603.controller.TransactionStatistics;
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.RecurrenceType;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import it.unicam.cs.mpgc.jbudget126603.persistency.XMLPersistenceManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Headless command-line entry point, for scripts and scheduled jobs.
+ * It drives the controllers directly and never loads JavaFX classes.
+ * The ledger is the same as the one of the application: "transactions.xml" and "tags.xml"
+ * in the working directory, or the ledger with the given id in the "ledgers" directory.
+ * <p>
+ * Imported CSV files need a header row naming the columns; "date" (ISO format) and "amount"
+ * are required, "type", "description", "tags" (names or IDs separated by ';'),
+ * "recurrence" and "id" are optional. Without a type column, negative amounts are expenses.
+ * Exported files have all these columns.
+ */
+public final class BudgetCli {
+
+    private static final String USAGE = """
+            Usage: BudgetCli [--ledger=<id>] <command> [options]
+            Commands:
+              import <file.csv>                         import transactions, skipping duplicates
+              export [<file.csv>]                       export all transactions (to standard output if no file)
+              balance [--from=<date>] [--to=<date>] [--tag=<name>]
+                                                        print the balance
+              stats [--from=<date>] [--to=<date>] [--tag=<name>]
+                                                        print totals, amount statistics and totals by tag
+              compact [--dedupe]                        drop transactions with a repeated ID (and, with --dedupe,
+                                                        repeated content) and rewrite the ledger
+              serve [--port=<port>]                     serve the ledger as JSON over HTTP on the loopback
+                                                        interface (default port %d) until stopped
+              help                                      print this message""".formatted(ApiServer.DEFAULT_PORT);
+
+    private static final List<String> EXPORT_COLUMNS =
+            List.of("id", "date", "amount", "type", "tags", "description", "recurrence");
+
+    private BudgetCli() {
+    }
+
+    /**
+     * Runs a command and exits with status 0 on success, 1 on invalid input and 2 on I/O errors.
+     *
+     * @param args the command and its options
+     */
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param args the command and its options
+     * @param out  the stream receiving the output
+     * @param err  the stream receiving the errors
+     * @return the exit status: 0 on success, 1 on invalid input, 2 on I/O errors
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        try {
+            Arguments arguments = Arguments.parse(args);
+            if (arguments.command == null || arguments.command.equals("help")) {
+                out.println(USAGE);
+                return arguments.command == null ? 1 : 0;
+            }
+            AppController controller = open(arguments);
+            switch (arguments.command) {
+                case "import" -> importCsv(controller, Path.of(arguments.positional(0, "file")), out, err);
+                case "export" -> exportCsv(controller, arguments.positional.isEmpty() ? null : Path.of(arguments.positional(0, "file")), out);
+                case "balance" -> balance(controller, arguments, out);
+                case "stats" -> stats(controller, arguments, out);
+                case "compact" -> compact(controller, arguments, out);
+                case "serve" -> serve(controller, arguments, out);
+                default -> throw new IllegalArgumentException("Unknown command: " + arguments.command);
+            }
+            return 0;
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            err.println(USAGE);
+            return 1;
+        } catch (IOException | UncheckedIOException e) {
+            err.println("I/O error: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    private static AppController open(Arguments arguments) throws IOException {
+        String ledgerId = arguments.options.get("ledger");
+        if (ledgerId == null) {
+            return new AppController(new XMLPersistenceManager("transactions.xml", "tags.xml"));
+        }
+        Path directory = Path.of("ledgers").resolve(ledgerId);
+        Files.createDirectories(directory);
+        return new AppController(new XMLPersistenceManager(
+                directory.resolve(LedgerRegistry.TRANSACTIONS_FILE).toString(),
+                directory.resolve(LedgerRegistry.TAGS_FILE).toString()));
+    }
+
+    private static void importCsv(AppController controller, Path file, PrintStream out, PrintStream err)
+            throws IOException {
+        Map<String, Tag> tagsByKey = new HashMap<>();
+        for (Tag tag : controller.getAllTags()) {
+            tagsByKey.putIfAbsent(tag.name().toLowerCase(Locale.ROOT), tag);
+            tagsByKey.put(tag.id(), tag);
+        }
+
+        List<TransactionBase> rows = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> header = Csv.readRecord(in);
+            if (header == null) throw new IllegalArgumentException("Empty file " + file);
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            if (!columns.containsKey("date") || !columns.containsKey("amount")) {
+                throw new IllegalArgumentException("The header of " + file + " must name the date and amount columns");
+            }
+            String idPrefix = "csv-" + System.currentTimeMillis() + "-";
+            Set<String> unknownTags = new HashSet<>();
+            List<String> record;
+            for (int row = 1; (record = Csv.readRecord(in)) != null; row++) {
+                if (record.size() == 1 && record.get(0).isBlank()) continue;
+                rows.add(parseRow(record, columns, tagsByKey, idPrefix + row, row, unknownTags));
+            }
+            unknownTags.forEach(name -> err.println("Warning: unknown tag " + name + ", left untagged"));
+        }
+
+        ImportResult result = controller.importTransactions(rows);
+        out.println("Imported " + result.added().size() + " transactions, skipped "
+                + result.duplicates().size() + " duplicates");
+        result.nearDuplicates().forEach((t, similar) -> out.println("Check " + describe(t) + ", similar to "
+                + similar.stream().map(BudgetCli::describe).collect(Collectors.joining("; "))));
+    }
+
+    private static TransactionBase parseRow(List<String> record, Map<String, Integer> columns,
+                                            Map<String, Tag> tagsByKey, String defaultId, int row,
+                                            Set<String> unknownTags) {
+        try {
+            LocalDate date = LocalDate.parse(field(record, columns, "date"));
+            BigDecimal amount = new BigDecimal(field(record, columns, "amount"));
+            String typeText = field(record, columns, "type");
+            Type type = typeText.isEmpty()
+                    ? (amount.signum() < 0 ? Type.EXPENSE : Type.INCOME)
+                    : Type.valueOf(typeText.toUpperCase(Locale.ROOT));
+            String recurrenceText = field(record, columns, "recurrence");
+            RecurrenceType recurrence = recurrenceText.isEmpty()
+                    ? null : RecurrenceType.valueOf(recurrenceText.toUpperCase(Locale.ROOT));
+            String id = field(record, columns, "id");
+
+            List<Tag> tags = new ArrayList<>();
+            String tagText = columns.containsKey("tags") ? field(record, columns, "tags") : field(record, columns, "tag");
+            for (String key : tagText.split(";")) {
+                key = key.trim();
+                if (key.isEmpty()) continue;
+                Tag tag = tagsByKey.getOrDefault(key, tagsByKey.get(key.toLowerCase(Locale.ROOT)));
+                if (tag != null) tags.add(tag);
+                else unknownTags.add(key);
+            }
+
+            return new Transaction(id.isEmpty() ? defaultId : id, new Money(amount.abs()), date,
+                    field(record, columns, "description"), type, tags, recurrence);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Row " + row + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String name) {
+        Integer column = columns.get(name);
+        return column == null || column >= record.size() ? "" : record.get(column).trim();
+    }
+
+    private static void exportCsv(AppController controller, Path file, PrintStream out) throws IOException {
+        PrintWriter writer = file == null
+                ? new PrintWriter(out, false, StandardCharsets.UTF_8)
+                : new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+        try {
+            writer.println(Csv.formatRecord(EXPORT_COLUMNS));
+            for (TransactionBase t : controller.getAllTransactions()) {
+                RecurrenceType recurrence = t instanceof Transaction tx ? tx.recurrenceType() : null;
+                writer.println(Csv.formatRecord(List.of(
+                        t.id(),
+                        t.date().toString(),
+                        t.amount().toString(),
+                        t.type().name(),
+                        t.tags().stream().map(Tag::name).collect(Collectors.joining(";")),
+                        t.description(),
+                        recurrence == null ? "" : recurrence.name())));
+            }
+        } finally {
+            if (file == null) writer.flush();
+            else writer.close();
+        }
+        if (writer.checkError()) throw new IOException("Cannot write the export");
+    }
+
+    private static void balance(AppController controller, Arguments arguments, PrintStream out) {
+        DateRange range = range(arguments);
+        Tag tag = tag(controller, arguments);
+        BudgetController budget = controller.getBudgetController();
+        List<TransactionBase> transactions = controller.getAllTransactions();
+        Money balance = tag == null
+                ? budget.calculateBalanceByPeriod(transactions, range)
+                : budget.calculateBalanceByPeriodAndTag(transactions, range, tag);
+        out.println(balance);
+    }
+
+    private static void stats(AppController controller, Arguments arguments, PrintStream out) {
+        Tag tag = tag(controller, arguments);
+        TransactionQuery query = TransactionQuery.builder()
+                .range(range(arguments))
+                .tag(tag == null ? null : tag.id())
+                .build();
+        TransactionStatistics statistics = controller.getStatisticsController()
+                .generateStatistics(controller.query(query));
+
+        out.println("Transactions: " + statistics.count());
+        new TreeMap<>(statistics.incomeExpense()).forEach((name, value) -> out.printf(Locale.ROOT, "%s: %.2f%n", name, value));
+        if (statistics.count() > 0) {
+            Map<String, Double> amounts = statistics.amountStatistics();
+            for (String key : List.of("average", "min", "median", "p90", "p99", "max")) {
+                out.printf(Locale.ROOT, "Amount %s: %.2f%n", key, amounts.get(key));
+            }
+        }
+        Map<String, Long> counts = statistics.countByTag();
+        new TreeMap<>(statistics.totalsByTag()).forEach((name, total) ->
+                out.printf(Locale.ROOT, "Tag %s: %.2f (%d)%n", name, total, counts.getOrDefault(name, 0L)));
+    }
+
+    private static void compact(AppController controller, Arguments arguments, PrintStream out) {
+        List<TransactionBase> dropped = controller.compact(arguments.flags.contains("dedupe"));
+        dropped.forEach(t -> out.println("Dropped " + describe(t)));
+        out.println("Dropped " + dropped.size() + " transactions, kept " + controller.getAllTransactions().size());
+    }
+
+    private static void serve(AppController controller, Arguments arguments, PrintStream out) throws IOException {
+        String portText = arguments.options.get("port");
+        int port;
+        try {
+            port = portText == null ? ApiServer.DEFAULT_PORT : Integer.parseInt(portText);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port: " + portText, e);
+        }
+        ApiServer server = new ApiServer(controller, port);
+        // applies the changes already submitted before the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "api-shutdown"));
+        server.start();
+        out.println("Serving the ledger on http://127.0.0.1:" + server.port() + "/api, press Ctrl+C to stop");
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static DateRange range(Arguments arguments) {
+        try {
+            String from = arguments.options.get("from");
+            String to = arguments.options.get("to");
+            return new DateRange(from == null ? null : LocalDate.parse(from), to == null ? null : LocalDate.parse(to));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + e.getParsedString(), e);
+        }
+    }
+
+    private static Tag tag(AppController controller, Arguments arguments) {
+        String name = arguments.options.get("tag");
+        if (name == null) return null;
+        return controller.getAllTags().stream()
+                .filter(t -> t.name().equalsIgnoreCase(name) || t.id().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown tag: " + name));
+    }
+
+    private static String describe(TransactionBase t) {
+        return t.id() + " " + t.date() + " " + t.type() + " " + t.amount() + " \"" + t.description() + "\"";
+    }
+
+    /**
+     * The command line: the command, its positional arguments,
+     * its "--name=value" options and its "--name" flags.
+     */
+    private static final class Arguments {
+        private String command;
+        private final List<String> positional = new ArrayList<>();
+        private final Map<String, String> options = new HashMap<>();
+        private final Set<String> flags = new HashSet<>();
+
+        private static Arguments parse(String[] args) {
+            Arguments arguments = new Arguments();
+            for (String arg : args) {
+                if (arg.startsWith("--")) {
+                    int eq = arg.indexOf('=');
+                    if (eq < 0) arguments.flags.add(arg.substring(2));
+                    else arguments.options.put(arg.substring(2, eq), arg.substring(eq + 1));
+                } else if (arguments.command == null) {
+                    arguments.command = arg;
+                } else {
+                    arguments.positional.add(arg);
+                }
+            }
+            return arguments;
+        }
+
+        private String positional(int index, String name) {
+            if (index >= positional.size()) throw new IllegalArgumentException("Missing " + name);
+            return positional.get(index);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package it.unicam.cs.mpgc.jbudget126603.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal reader and writer of comma-separated values (RFC 4180): fields are separated
+ * by commas, and quoted with double quotes when they contain commas, quotes or line breaks,
+ * a quote inside a quoted field being doubled.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    /**
+     * Reads the next record, which may span several lines if a quoted field contains line breaks.
+     *
+     * @param in the reader
+     * @return the fields of the record, or null at the end of the input
+     * @throws IOException if the input cannot be read
+     */
+    public static List<String> readRecord(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        if (line == null) return null;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) break;
+                // line break inside a quoted field
+                line = in.readLine();
+                if (line == null) break;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Formats a record as a line, without the line terminator.
+     *
+     * @param fields the fields of the record
+     * @return the line
+     */
+    public static String formatRecord(List<String> fields) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) line.append(',');
+            String field = fields.get(i) == null ? "" : fields.get(i);
+            if (field.indexOf(',') < 0 && field.indexOf('"') < 0
+                    && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+                line.append(field);
+            } else {
+                line.append('"').append(field.replace("\"", "\"\"")).append('"');
+            }
+        }
+        return line.toString();
+    }
+}
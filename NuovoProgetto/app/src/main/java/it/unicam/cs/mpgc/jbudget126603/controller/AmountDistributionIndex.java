@@ -0,0 +1,109 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Distribution of expense amounts per tag, per month and per (tag, month),
+ * kept in {@link QuantileSketch}es updated in O(1) amortized on every change.
+ * Median, 90th and 99th percentile are answered without sorting the ledger,
+ * within the relative accuracy of the sketches (1%).
+ * An expense with several tags is counted under each of them;
+ * negative amounts, which the sketches cannot hold, are ignored.
+ */
+public class AmountDistributionIndex implements TransactionListener {
+
+    private final Map<String, QuantileSketch> byTag = new HashMap<>();
+    private final Map<YearMonth, QuantileSketch> byMonth = new HashMap<>();
+    private final Map<String, Map<YearMonth, QuantileSketch>> byTagAndMonth = new HashMap<>();
+    private final QuantileSketch all = new QuantileSketch();
+
+    @Override
+    public synchronized void transactionAdded(TransactionBase transaction) {
+        if (transaction.type() != Type.EXPENSE) return;
+        long cents = transaction.amount().cents();
+        if (cents < 0) return;
+        YearMonth month = YearMonth.from(transaction.date());
+        all.add(cents);
+        byMonth.computeIfAbsent(month, m -> new QuantileSketch()).add(cents);
+        for (String tagId : tagIds(transaction)) {
+            byTag.computeIfAbsent(tagId, t -> new QuantileSketch()).add(cents);
+            byTagAndMonth.computeIfAbsent(tagId, t -> new HashMap<>())
+                    .computeIfAbsent(month, m -> new QuantileSketch()).add(cents);
+        }
+    }
+
+    @Override
+    public synchronized void transactionRemoved(TransactionBase transaction) {
+        if (transaction.type() != Type.EXPENSE) return;
+        long cents = transaction.amount().cents();
+        if (cents < 0) return;
+        YearMonth month = YearMonth.from(transaction.date());
+        all.remove(cents);
+        removeFrom(byMonth, month, cents);
+        for (String tagId : tagIds(transaction)) {
+            removeFrom(byTag, tagId, cents);
+            Map<YearMonth, QuantileSketch> months = byTagAndMonth.get(tagId);
+            if (months != null) {
+                removeFrom(months, month, cents);
+                if (months.isEmpty()) byTagAndMonth.remove(tagId);
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated q-quantile of the expense amounts of a tag in a month.
+     *
+     * @param tagId the ID of the tag, or null for all tags
+     * @param month the month, or null for all months
+     * @param q     the quantile, between 0 and 1
+     * @return the estimated amount, or NaN if there are no matching expenses
+     */
+    public synchronized double quantile(String tagId, YearMonth month, double q) {
+        QuantileSketch sketch = sketch(tagId, month);
+        return sketch == null ? Double.NaN : sketch.quantile(q) / 100.0;
+    }
+
+    /**
+     * Returns median, 90th and 99th percentile of the expense amounts of a tag in a month.
+     *
+     * @param tagId the ID of the tag, or null for all tags
+     * @param month the month, or null for all months
+     * @return a map with keys "median", "p90", "p99" (NaN if there are no matching expenses) and "count"
+     */
+    public synchronized Map<String, Double> summary(String tagId, YearMonth month) {
+        QuantileSketch sketch = sketch(tagId, month);
+        Map<String, Double> result = new HashMap<>();
+        result.put("median", sketch == null ? Double.NaN : sketch.quantile(0.5) / 100.0);
+        result.put("p90", sketch == null ? Double.NaN : sketch.quantile(0.9) / 100.0);
+        result.put("p99", sketch == null ? Double.NaN : sketch.quantile(0.99) / 100.0);
+        result.put("count", sketch == null ? 0.0 : sketch.count());
+        return result;
+    }
+
+    private QuantileSketch sketch(String tagId, YearMonth month) {
+        if (tagId == null && month == null) return all;
+        if (tagId == null) return byMonth.get(month);
+        if (month == null) return byTag.get(tagId);
+        return byTagAndMonth.getOrDefault(tagId, Map.of()).get(month);
+    }
+
+    private static <K> void removeFrom(Map<K, QuantileSketch> sketches, K key, long cents) {
+        QuantileSketch sketch = sketches.get(key);
+        if (sketch == null) return;
+        sketch.remove(cents);
+        if (sketch.count() == 0) sketches.remove(key);
+    }
+
+    private static Set<String> tagIds(TransactionBase transaction) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Tag tag : transaction.tags()) ids.add(tag.id());
+        return ids;
+    }
+}
@@ -0,0 +1,152 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+
+/**
+ * Streaming detection of unusual expenses.
+ * Every expense is scored, when it arrives, against the history of its tags:
+ * the z-score of the amount with respect to the running mean and variance
+ * of the previous expenses of the same tag (Welford's algorithm).
+ * The state of a tag is three numbers updated in O(1), and can be reverted
+ * in O(1) when an expense is removed or edited, so scoring never scans the ledger.
+ * An expense with several tags is flagged if it is unusual for any of them;
+ * untagged expenses share one history.
+ */
+public class AnomalyDetector implements TransactionListener {
+
+    /** Default z-score above which an expense is flagged. */
+    public static final double DEFAULT_THRESHOLD = 3.0;
+
+    /** Default number of previous expenses a tag needs before its expenses are scored. */
+    public static final int DEFAULT_MIN_SAMPLES = 5;
+
+    /**
+     * Smallest standard deviation, in cents, a history is scored against,
+     * so that scores stay finite for a tag whose expenses are all equal.
+     */
+    private static final double MIN_DEVIATION_CENTS = 100;
+
+    /**
+     * Smallest standard deviation, as a fraction of the mean, a history is scored against:
+     * a tag whose expenses are all equal (such as a fixed rent) flags an expense only if it
+     * is higher by more than {@code threshold} times this fraction of the usual amount,
+     * not as soon as it differs by a few cents.
+     */
+    private static final double MIN_RELATIVE_DEVIATION = 0.05;
+
+    private static final String UNTAGGED = "";
+
+    private final double threshold;
+    private final int minSamples;
+    /** Count, mean and sum of squared deviations of the expense amounts, by tag ID. */
+    private final Map<String, double[]> moments = new HashMap<>();
+    /** Score of each flagged transaction, by transaction ID. */
+    private final Map<String, Double> flagged = new HashMap<>();
+
+    /**
+     * Creates a detector with the default threshold and minimum history.
+     */
+    public AnomalyDetector() {
+        this(DEFAULT_THRESHOLD, DEFAULT_MIN_SAMPLES);
+    }
+
+    /**
+     * Creates a detector.
+     *
+     * @param threshold  the z-score above which an expense is flagged
+     * @param minSamples the number of previous expenses a tag needs before its expenses are scored
+     * @throws IllegalArgumentException if the threshold is not positive or minSamples is less than 2
+     */
+    public AnomalyDetector(double threshold, int minSamples) {
+        if (!(threshold > 0)) throw new IllegalArgumentException("Threshold must be positive");
+        if (minSamples < 2) throw new IllegalArgumentException("At least two samples are needed");
+        this.threshold = threshold;
+        this.minSamples = minSamples;
+    }
+
+    @Override
+    public synchronized void transactionAdded(TransactionBase transaction) {
+        if (transaction.type() != Type.EXPENSE) return;
+        double amount = transaction.amount().cents();
+        double score = 0;
+        for (String tagId : tagIds(transaction)) {
+            double[] m = moments.computeIfAbsent(tagId, k -> new double[3]);
+            score = Math.max(score, zScore(m, amount));
+            m[0]++;
+            double delta = amount - m[1];
+            m[1] += delta / m[0];
+            m[2] += delta * (amount - m[1]);
+        }
+        if (score > threshold) flagged.put(transaction.id(), score);
+    }
+
+    @Override
+    public synchronized void transactionRemoved(TransactionBase transaction) {
+        if (transaction.type() != Type.EXPENSE) return;
+        double amount = transaction.amount().cents();
+        for (String tagId : tagIds(transaction)) {
+            double[] m = moments.get(tagId);
+            if (m == null) continue;
+            if (m[0] <= 1) {
+                moments.remove(tagId);
+                continue;
+            }
+            double oldMean = m[1];
+            m[0]--;
+            m[1] = (oldMean * (m[0] + 1) - amount) / m[0];
+            m[2] = Math.max(0, m[2] - (amount - m[1]) * (amount - oldMean));
+        }
+        flagged.remove(transaction.id());
+    }
+
+    /**
+     * Tells whether a transaction was flagged as unusual.
+     *
+     * @param transactionId the ID of the transaction
+     * @return true if the transaction is flagged, false otherwise
+     */
+    public synchronized boolean isAnomalous(String transactionId) {
+        return flagged.containsKey(transactionId);
+    }
+
+    /**
+     * Returns the z-score of a flagged transaction.
+     *
+     * @param transactionId the ID of the transaction
+     * @return the score, or empty if the transaction is not flagged
+     */
+    public synchronized OptionalDouble score(String transactionId) {
+        Double score = flagged.get(transactionId);
+        return score == null ? OptionalDouble.empty() : OptionalDouble.of(score);
+    }
+
+    /**
+     * Returns the IDs of all the flagged transactions.
+     *
+     * @return an unmodifiable snapshot of the flagged IDs
+     */
+    public synchronized Set<String> getAnomalousIds() {
+        return Set.copyOf(flagged.keySet());
+    }
+
+    private double zScore(double[] m, double amount) {
+        if (m[0] < minSamples) return 0;
+        double floor = Math.max(MIN_DEVIATION_CENTS, MIN_RELATIVE_DEVIATION * Math.abs(m[1]));
+        double sd = Math.max(floor, Math.sqrt(m[2] / (m[0] - 1)));
+        return (amount - m[1]) / sd;
+    }
+
+    private static Set<String> tagIds(TransactionBase transaction) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Tag tag : transaction.tags()) ids.add(tag.id());
+        if (ids.isEmpty()) ids.add(UNTAGGED);
+        return ids;
+    }
+}
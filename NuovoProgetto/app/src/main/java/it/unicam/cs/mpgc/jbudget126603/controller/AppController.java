@@ -1,40 +1,215 @@
 package it.unicam.cs.mpgc.jbudget126603.controller;
 
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.RecurrenceType;
 import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
 import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
 import it.unicam.cs.mpgc.jbudget126603.persistency.PersistenceManager;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
 
 /**
  * Central application controller (facade).
- * Loads data at construction time and is the single point that persists state.
+ * Loads data at construction time, or progressively in the background
+ * (see {@link #loadTransactions(int, IntConsumer)}), and is the single point that persists state.
+ * Registered {@link TransactionListener}s are notified of every change,
+ * which keeps the incremental indexes (such as the period balance index) up to date.
+ * Readers that must not wait for writers can use the immutable {@link #snapshot()}
+ * instead, and writers can group changes with {@link #runBatch(Runnable)}.
+ * A change whose save fails is not rolled back: it stays applied in memory, and is written
+ * by the next save; the failure of the save, an {@link java.io.UncheckedIOException},
+ * is thrown to the caller, which must report the change as applied but not written to disk.
+ * Changes refused before being applied throw {@link IllegalStateException} or
+ * {@link IllegalArgumentException} instead.
  */
 public class AppController {
 
     private final PersistenceManager persistenceManager;
     private final List<TransactionBase> allTransactions;
+    private final Map<String, TransactionBase> transactionsById = new HashMap<>();
+    /**
+     * Position in the ledger of the transaction indexed by each ID. Removals leave the positions
+     * of the following transactions stale; they are recomputed when next needed, from
+     * {@link #positionsValidBelow} on.
+     */
+    private final Map<String, Integer> positions = new HashMap<>();
+    private int positionsValidBelow;
+    /** IDs shared by several transactions, as a ledger written by hand or merged can have. */
+    private final Set<String> repeatedIds = new HashSet<>();
     private final TagController tagController;
     private final BudgetController budgetController;
     private final StatisticsController statisticsController;
+    private final List<TransactionListener> listeners = new CopyOnWriteArrayList<>();
+    private final PeriodBalanceIndex periodBalanceIndex = new PeriodBalanceIndex();
+    private final TagPeriodCube tagPeriodCube = new TagPeriodCube();
+    private final BudgetLimitManager budgetLimitManager;
+    private final AmountDistributionIndex amountDistribution = new AmountDistributionIndex();
+    private final TimeSeriesIndex timeSeriesIndex = new TimeSeriesIndex();
+    private final AnomalyDetector anomalyDetector = new AnomalyDetector();
+    private final DescriptionIndex descriptionIndex = new DescriptionIndex();
+    private final TagSuggester tagSuggester;
+    private final DuplicateDetector duplicateDetector = new DuplicateDetector();
+    private final SortedTransactionIndex sortedTransactions;
+    private final List<CandidateSource> candidateSources = new CopyOnWriteArrayList<>();
+    /** True until the deferred load of the transactions starts. */
+    private boolean loadPending;
+    /** True until the deferred load of the transactions ends; saves are postponed meanwhile. */
+    private boolean loading;
+    /** Number of nested {@link #runBatch(Runnable)} calls running; saves are postponed meanwhile. */
+    private int batchDepth;
+    private boolean saveDeferred;
+    /** Why the deferred load failed; the ledger in memory is then incomplete and is never saved. */
+    private RuntimeException loadFailure;
+    /** Last published state for lock-free readers; null until the first one asks. */
+    private volatile LedgerSnapshot snapshot;
 
     /**
      * Constructs the AppController and loads persisted data.
      *
      * @param persistenceManager the persistence manager to use
+     * @throws java.io.UncheckedIOException if the persisted data cannot be read
      */
     public AppController(PersistenceManager persistenceManager) {
+        this(persistenceManager, true);
+    }
+
+    /**
+     * Constructs the AppController and loads the persisted tags, and the persisted
+     * transactions too unless they are left to {@link #loadTransactions(int, IntConsumer)}.
+     *
+     * @param persistenceManager the persistence manager to use
+     * @param loadTransactions   false to start with no transactions and load them later
+     * @throws java.io.UncheckedIOException if the persisted data cannot be read
+     */
+    public AppController(PersistenceManager persistenceManager, boolean loadTransactions) {
         this.persistenceManager = persistenceManager;
+        this.loadPending = !loadTransactions;
+        this.loading = !loadTransactions;
         // load all transactions once and keep in-memory
-        List<TransactionBase> loaded = persistenceManager.loadTransactions();
-        this.allTransactions = new ArrayList<>(loaded == null ? List.of() : loaded);
+        List<TransactionBase> loaded = loadTransactions ? persistenceManager.loadTransactions() : List.of();
+        this.allTransactions = new ArrayList<>(loaded == null ? 0 : loaded.size());
+        if (loaded != null) loaded.forEach(this::append);
 
         // load tags into the TagManager (assumes TagManager has a constructor with PersistenceManager)
         this.tagController = new TagManager(persistenceManager);
         // Managers for budget/statistics can be simple instances using in-memory data
-        this.budgetController = new BudgetManager();
-        this.statisticsController = new StatisticsManager();
+        this.budgetController = new BudgetManager(tagController);
+        this.statisticsController = new StatisticsManager(timeSeriesIndex, tagController);
+        this.budgetLimitManager = new BudgetLimitManager(tagController, persistenceManager);
+        this.tagSuggester = new TagSuggester(tagController);
+        this.sortedTransactions = new SortedTransactionIndex(tagController);
+
+        addTransactionListener(periodBalanceIndex);
+        addTransactionListener(tagPeriodCube);
+        addTransactionListener(budgetLimitManager);
+        addTransactionListener(amountDistribution);
+        addTransactionListener(timeSeriesIndex);
+        addTransactionListener(anomalyDetector);
+        addTransactionListener(descriptionIndex);
+        addTransactionListener(tagSuggester);
+        addTransactionListener(duplicateDetector);
+        addTransactionListener(sortedTransactions);
+        candidateSources.add(tagPeriodCube);
+        candidateSources.add(descriptionIndex);
+    }
+
+    /**
+     * Loads the persisted transactions in batches, for a controller constructed without them.
+     * Every batch is added holding the lock of the controller, and the listeners are notified,
+     * so the transactions already loaded can be shown and edited while the rest is read;
+     * changes made meanwhile are saved once the whole ledger is loaded.
+     * If the load fails, the controller becomes {@link #isReadOnly() read-only}: the ledger
+     * in memory is incomplete, and saving it would overwrite the persisted one with a part of it.
+     * If the load completes but the changes made meanwhile cannot be saved, the ledger stays
+     * writable, as after any failed save; callers tell the two failures apart with {@link #isReadOnly()}.
+     *
+     * @param batchSize the maximum number of transactions per batch
+     * @param onBatch   called on the loading thread after every batch, with the number of transactions loaded so far
+     * @throws IllegalStateException if the transactions were already loaded
+     * @throws RuntimeException      the failure of the load, such as an {@link java.io.UncheckedIOException},
+     *                               or the failure to save the changes made while loading
+     */
+    public void loadTransactions(int batchSize, IntConsumer onBatch) {
+        synchronized (this) {
+            if (!loadPending) throw new IllegalStateException("Transactions already loaded");
+            loadPending = false;
+        }
+        int[] count = new int[1];
+        try {
+            persistenceManager.loadTransactions(batchSize, batch -> {
+                synchronized (this) {
+                    for (TransactionBase t : batch) {
+                        notifyAdded(t);
+                        append(t);
+                    }
+                    count[0] += batch.size();
+                    publishSnapshot();
+                }
+                onBatch.accept(count[0]);
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loadFailure = e;
+                loading = false;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            loading = false;
+            // a failure here is a failed save of a complete ledger, not a failed load
+            if (saveDeferred) persistTransactions();
+        }
+    }
+
+    /**
+     * Tells whether the ledger cannot be changed because its load failed
+     * (see {@link #loadTransactions(int, IntConsumer)}).
+     *
+     * @return true if changes are refused
+     */
+    public synchronized boolean isReadOnly() {
+        return loadFailure != null;
+    }
+
+    /**
+     * Refuses changes to a ledger that was not loaded completely, before anything is changed.
+     */
+    private void checkWritable() {
+        if (loadFailure != null) {
+            throw new IllegalStateException("The ledger is read-only because it could not be loaded: "
+                    + loadFailure.getMessage(), loadFailure);
+        }
+    }
+
+    /**
+     * Registers a listener notified of every change to the transactions.
+     * The listener first receives an addition for each transaction already loaded.
+     *
+     * @param listener the listener to register
+     */
+    public synchronized void addTransactionListener(TransactionListener listener) {
+        allTransactions.forEach(listener::transactionAdded);
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public synchronized void removeTransactionListener(TransactionListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -42,31 +217,168 @@ public class AppController {
      *
      * @param transaction transaction to add
      * @return true if added, false if a transaction with same id already exists
+     * @throws IllegalStateException if the ledger is {@link #isReadOnly() read-only}
+     * @throws IllegalArgumentException if the date is outside the supported range
      */
     public synchronized boolean addTransaction(TransactionBase transaction) {
-        Optional<TransactionBase> found = getTransactionById(transaction.id());
-        if (found.isPresent()) return false;
-        allTransactions.add(transaction);
+        checkWritable();
+        if (!insert(transaction)) return false;
         persistTransactions();
         return true;
     }
 
+    /**
+     * Imports a batch of transactions, persisting once at the end.
+     * Untagged rows are first categorized from their description (see {@link #autoCategorize(List)}).
+     * Rows whose ID is already used, or whose date, amount, type and description match
+     * a recorded transaction (including a row earlier in the same batch), are skipped;
+     * added rows resembling recorded transactions are reported for review.
+     *
+     * @param transactions the transactions to import
+     * @return the outcome of the import
+     * @throws IllegalStateException if the ledger is {@link #isReadOnly() read-only}
+     * @throws IllegalArgumentException if a transaction has a date outside the supported range;
+     *                                  nothing is imported then
+     */
+    public synchronized ImportResult importTransactions(List<TransactionBase> transactions) {
+        checkWritable();
+        transactions.forEach(AppController::checkDate);
+        List<TransactionBase> added = new ArrayList<>();
+        List<TransactionBase> duplicates = new ArrayList<>();
+        Map<TransactionBase, List<TransactionBase>> nearDuplicates = new LinkedHashMap<>();
+        for (TransactionBase t : autoCategorize(transactions)) {
+            if (duplicateDetector.isDuplicate(t)) {
+                duplicates.add(t);
+                continue;
+            }
+            List<TransactionBase> similar = duplicateDetector.findNearDuplicates(t);
+            if (!insert(t)) {
+                duplicates.add(t);
+                continue;
+            }
+            added.add(t);
+            if (!similar.isEmpty()) nearDuplicates.put(t, similar);
+        }
+        if (!added.isEmpty()) persistTransactions();
+        return new ImportResult(added, duplicates, nearDuplicates);
+    }
+
+    /**
+     * Notifies the listeners, then adds a transaction to the list and the ID index, without persisting.
+     *
+     * @return false if a transaction with the same ID already exists
+     * @throws IllegalArgumentException if the date is outside the supported range
+     */
+    private boolean insert(TransactionBase transaction) {
+        checkDate(transaction);
+        if (transactionsById.containsKey(transaction.id())) return false;
+        notifyAdded(transaction);
+        append(transaction);
+        return true;
+    }
+
+    /**
+     * Adds a transaction at the end of the ledger and indexes it, unless its ID is taken already.
+     */
+    private void append(TransactionBase transaction) {
+        if (transactionsById.putIfAbsent(transaction.id(), transaction) == null) {
+            positions.put(transaction.id(), allTransactions.size());
+        } else {
+            repeatedIds.add(transaction.id());
+        }
+        if (positionsValidBelow == allTransactions.size()) positionsValidBelow++;
+        allTransactions.add(transaction);
+    }
+
+    /**
+     * Returns the position in the ledger of the transaction indexed by an ID,
+     * first recomputing the positions left stale by removals if needed.
+     *
+     * @return the position, or -1 if no transaction has the ID
+     */
+    private int positionOf(String id) {
+        Integer position = positions.get(id);
+        if (position == null) return -1;
+        if (position >= positionsValidBelow) {
+            for (int i = positionsValidBelow; i < allTransactions.size(); i++) {
+                TransactionBase t = allTransactions.get(i);
+                if (transactionsById.get(t.id()) == t) positions.put(t.id(), i);
+            }
+            positionsValidBelow = allTransactions.size();
+            position = positions.get(id);
+        }
+        return position;
+    }
+
+    /**
+     * Rejects the dates the indexes cannot hold (see {@link PeriodBalanceIndex#supports(LocalDate)}),
+     * before anything is changed.
+     */
+    private static void checkDate(TransactionBase transaction) {
+        if (!PeriodBalanceIndex.supports(transaction.date())) {
+            throw new IllegalArgumentException("Date " + transaction.date() + " is outside the supported range "
+                    + PeriodBalanceIndex.MIN_DATE + " to " + PeriodBalanceIndex.MAX_DATE);
+        }
+    }
+
+    /**
+     * Notifies the listeners of an addition. If one of them fails, those already notified
+     * are told of the removal and the failure is rethrown, so that no index keeps
+     * a transaction the ledger does not have.
+     */
+    private void notifyAdded(TransactionBase transaction) {
+        int notified = 0;
+        try {
+            for (TransactionListener listener : listeners) {
+                listener.transactionAdded(transaction);
+                notified++;
+            }
+        } catch (RuntimeException e) {
+            for (int i = notified - 1; i >= 0; i--) listeners.get(i).transactionRemoved(transaction);
+            throw e;
+        }
+    }
+
+    /**
+     * Notifies the listeners of an update, reverting it in those already notified if one of them fails.
+     */
+    private void notifyUpdated(TransactionBase oldTransaction, TransactionBase newTransaction) {
+        int notified = 0;
+        try {
+            for (TransactionListener listener : listeners) {
+                listener.transactionUpdated(oldTransaction, newTransaction);
+                notified++;
+            }
+        } catch (RuntimeException e) {
+            for (int i = notified - 1; i >= 0; i--) listeners.get(i).transactionUpdated(newTransaction, oldTransaction);
+            throw e;
+        }
+    }
+
     /**
      * Updates an existing transaction (matched by id). Persists all transactions on success.
      *
      * @param id                 id of the transaction to update
      * @param updatedTransaction new transaction replacing the old one
      * @return true if updated (existing), false otherwise
+     * @throws IllegalStateException if the ledger is {@link #isReadOnly() read-only}
+     * @throws IllegalArgumentException if the new date is outside the supported range
      */
     public synchronized boolean updateTransaction(String id, TransactionBase updatedTransaction) {
-        for (int i = 0; i < allTransactions.size(); i++) {
-            if (allTransactions.get(i).id().equals(id)) {
-                allTransactions.set(i, updatedTransaction);
-                persistTransactions();
-                return true;
-            }
+        checkWritable();
+        checkDate(updatedTransaction);
+        int position = positionOf(id);
+        if (position < 0) return false;
+        notifyUpdated(allTransactions.get(position), updatedTransaction);
+        allTransactions.set(position, updatedTransaction);
+        transactionsById.remove(id);
+        positions.remove(id);
+        if (transactionsById.put(updatedTransaction.id(), updatedTransaction) != null) {
+            repeatedIds.add(updatedTransaction.id());
         }
-        return false;
+        positions.put(updatedTransaction.id(), position);
+        persistTransactions();
+        return true;
     }
 
     /**
@@ -74,11 +386,101 @@ public class AppController {
      *
      * @param id id of the transaction to remove
      * @return true if removed, false if not found
+     * @throws IllegalStateException if the ledger is {@link #isReadOnly() read-only}
      */
     public synchronized boolean removeTransaction(String id) {
-        boolean removed = allTransactions.removeIf(t -> t.id().equals(id));
-        if (removed) persistTransactions();
-        return removed;
+        checkWritable();
+        int position = positionOf(id);
+        if (position < 0) return false;
+        transactionsById.remove(id);
+        positions.remove(id);
+        if (repeatedIds.remove(id)) {
+            // the other transactions with the ID are not indexed: scan for them
+            for (int i = allTransactions.size() - 1; i >= 0; i--) {
+                if (allTransactions.get(i).id().equals(id)) {
+                    position = i;
+                    TransactionBase t = allTransactions.remove(i);
+                    listeners.forEach(l -> l.transactionRemoved(t));
+                }
+            }
+        } else {
+            TransactionBase t = allTransactions.remove(position);
+            listeners.forEach(l -> l.transactionRemoved(t));
+        }
+        positionsValidBelow = Math.min(positionsValidBelow, position);
+        persistTransactions();
+        return true;
+    }
+
+    /**
+     * Drops the transactions sharing the ID of an earlier one and, if asked, those with
+     * the same date, amount, type and description as an earlier one
+     * (see {@link DuplicateDetector#fingerprint(TransactionBase)}), then rewrites the ledger.
+     * The first of each group is kept.
+     *
+     * @param dropContentDuplicates true to drop the transactions duplicated by content too
+     * @return the dropped transactions
+     * @throws IllegalStateException if the ledger is {@link #isReadOnly() read-only}
+     */
+    public synchronized List<TransactionBase> compact(boolean dropContentDuplicates) {
+        checkWritable();
+        List<TransactionBase> dropped = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        Set<Long> fingerprints = new HashSet<>();
+        List<TransactionBase> kept = new ArrayList<>(allTransactions.size());
+        for (TransactionBase t : allTransactions) {
+            boolean duplicate = !ids.add(t.id());
+            if (!duplicate && dropContentDuplicates && !fingerprints.add(DuplicateDetector.fingerprint(t))) duplicate = true;
+            if (!duplicate) {
+                kept.add(t);
+                continue;
+            }
+            listeners.forEach(l -> l.transactionRemoved(t));
+            dropped.add(t);
+        }
+        // index the kept transactions again: each now has an ID of its own
+        allTransactions.clear();
+        transactionsById.clear();
+        positions.clear();
+        repeatedIds.clear();
+        positionsValidBelow = 0;
+        kept.forEach(this::append);
+        persistTransactions();
+        return dropped;
+    }
+
+    /**
+     * Runs several changes as one: the lock of the controller is held throughout,
+     * the ledger is saved once at the end and the {@link #snapshot()} moves
+     * directly from the state before the changes to the state after all of them.
+     * Batches can be nested; only the outermost one saves.
+     *
+     * @param changes the changes, calling the methods of this controller
+     */
+    public synchronized void runBatch(Runnable changes) {
+        batchDepth++;
+        try {
+            changes.run();
+        } finally {
+            batchDepth--;
+            if (batchDepth == 0 && saveDeferred) persistTransactions();
+        }
+    }
+
+    /**
+     * Returns an immutable copy of the transactions as they were after the last completed
+     * change or batch of changes. Once the first snapshot is requested, a new one is published
+     * by every change, so this method only reads a volatile field and never waits for writers.
+     *
+     * @return the current snapshot
+     */
+    public LedgerSnapshot snapshot() {
+        LedgerSnapshot current = snapshot;
+        if (current != null) return current;
+        synchronized (this) {
+            if (snapshot == null) snapshot = new LedgerSnapshot(allTransactions, transactionsById);
+            return snapshot;
+        }
     }
 
     /**
@@ -87,8 +489,8 @@ public class AppController {
      * @param id the transaction id
      * @return optional with found transaction or empty
      */
-    public Optional<TransactionBase> getTransactionById(String id) {
-        return allTransactions.stream().filter(t -> t.id().equals(id)).findFirst();
+    public synchronized Optional<TransactionBase> getTransactionById(String id) {
+        return Optional.ofNullable(transactionsById.get(id));
     }
 
     /**
@@ -96,13 +498,197 @@ public class AppController {
      *
      * @return list of transactions
      */
-    public List<TransactionBase> getAllTransactions() {
+    public synchronized List<TransactionBase> getAllTransactions() {
         return new ArrayList<>(allTransactions);
     }
 
+    /**
+     * Returns the balance of all transactions within a date range,
+     * answered by the period balance index in logarithmic time.
+     *
+     * @param range the date range
+     * @return the balance (incomes minus expenses)
+     */
+    public Money getBalanceByPeriod(DateRange range) {
+        return periodBalanceIndex.balance(range);
+    }
+
+    /**
+     * Returns the balance of the transactions within a date range whose tag
+     * lies in the subtree of the given tag, answered by the tag/period cube.
+     *
+     * @param range the date range
+     * @param tag   the tag
+     * @return the balance (incomes minus expenses)
+     */
+    public Money getBalanceByPeriodAndTag(DateRange range, Tag tag) {
+        return tagPeriodCube.balance(range, tag.id(), tagController.getTagTree());
+    }
+
+    /**
+     * Returns the transactions matching a query, planned against the indexes
+     * able to narrow it (such as the month buckets of the tag/period cube).
+     *
+     * @param query the query
+     * @return the matching transactions
+     */
+    public synchronized List<TransactionBase> query(TransactionQuery query) {
+        return query.compile(tagController.getTagTree()).execute(allTransactions, candidateSources);
+    }
+
+    /**
+     * Returns the IDs of the transactions whose description matches every word of a text,
+     * ignoring case and accents, through the inverted index of the descriptions.
+     *
+     * @param text the search text
+     * @return the matching IDs, or all the IDs if the text has no words
+     */
+    public Set<String> searchDescriptions(String text) {
+        return descriptionIndex.search(text);
+    }
+
+    /**
+     * Shows in the sorted index only the transactions whose description matches a text,
+     * as {@link #searchDescriptions(String)} does, and keeps the filter applied to later changes.
+     * The matches are taken from the inverted index while holding the lock,
+     * so no change can fall between the search and the filter.
+     *
+     * @param text the search text, or null to show all the transactions
+     */
+    public synchronized void filterSortedTransactions(String text) {
+        if (text == null) {
+            sortedTransactions.setFilter(null, null);
+        } else {
+            sortedTransactions.setFilter(t -> TextNormalizer.matches(text, t.description()),
+                    descriptionIndex.search(text));
+        }
+    }
+
+    /**
+     * Returns the transactions in display order, for paged views.
+     *
+     * @return the sorted transaction index
+     */
+    public SortedTransactionIndex getSortedTransactions() {
+        return sortedTransactions;
+    }
+
+    /**
+     * Returns the detector of duplicated transactions.
+     *
+     * @return the duplicate detector
+     */
+    public DuplicateDetector getDuplicateDetector() {
+        return duplicateDetector;
+    }
+
+    /**
+     * Returns the engine suggesting tags from transaction descriptions.
+     *
+     * @return the tag suggester
+     */
+    public TagSuggester getTagSuggester() {
+        return tagSuggester;
+    }
+
+    /**
+     * Tags the untagged transactions of a batch with the tag suggested by their description,
+     * in a single pass over the batch. Transactions without a clear suggestion are left unchanged.
+     *
+     * @param transactions the transactions to categorize, for example imported rows
+     * @return the transactions, with suggested tags applied, in the same order
+     */
+    public List<TransactionBase> autoCategorize(List<TransactionBase> transactions) {
+        Map<String, Tag> suggestions = tagSuggester.categorize(transactions);
+        List<TransactionBase> result = new ArrayList<>(transactions.size());
+        for (TransactionBase t : transactions) {
+            Tag tag = suggestions.get(t.id());
+            if (tag == null) {
+                result.add(t);
+            } else {
+                RecurrenceType recurrence = t instanceof Transaction tx ? tx.recurrenceType() : null;
+                result.add(new Transaction(t.id(), t.amount(), t.date(), t.description(), t.type(),
+                        List.of(tag), recurrence));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the balances by day.
+     *
+     * @return the period balance index
+     */
+    public PeriodBalanceIndex getPeriodBalanceIndex() {
+        return periodBalanceIndex;
+    }
+
+    /**
+     * Returns the cube of pre-aggregated totals by month, tag and type.
+     *
+     * @return the tag/period cube
+     */
+    public TagPeriodCube getTagPeriodCube() {
+        return tagPeriodCube;
+    }
+
+    /**
+     * Returns the manager of the monthly spending limits per tag.
+     *
+     * @return the budget limit manager
+     */
+    public BudgetLimitManager getBudgetLimitManager() {
+        return budgetLimitManager;
+    }
+
+    /**
+     * Returns the index of expense amount distributions per tag and month.
+     *
+     * @return the amount distribution index
+     */
+    public AmountDistributionIndex getAmountDistribution() {
+        return amountDistribution;
+    }
+
+    /**
+     * Returns the detector of unusual expenses.
+     *
+     * @return the anomaly detector
+     */
+    public AnomalyDetector getAnomalyDetector() {
+        return anomalyDetector;
+    }
+
     private void persistTransactions() {
+        if (batchDepth > 0) {
+            saveDeferred = true;
+            return;
+        }
+        publishSnapshot();
+        if (loading) {
+            // saving now would drop the transactions not loaded yet
+            saveDeferred = true;
+            return;
+        }
+        saveDeferred = false;
+        // an incomplete ledger would overwrite the persisted one
+        if (loadFailure != null) return;
         // Persist everything; persistenceManager is responsible to write to disk
-        persistenceManager.saveTransactions(new ArrayList<>(allTransactions));
+        try {
+            persistenceManager.saveTransactions(new ArrayList<>(allTransactions));
+        } catch (RuntimeException e) {
+            // the changes stay applied: the end of the next batch, or the next change, tries again
+            saveDeferred = true;
+            throw e;
+        }
+    }
+
+
+    /**
+     * Replaces the snapshot, if readers use one, with the current state.
+     */
+    private void publishSnapshot() {
+        if (snapshot != null) snapshot = new LedgerSnapshot(allTransactions, transactionsById);
     }
 
 
@@ -111,6 +697,16 @@ public class AppController {
     }
 
 
+    public BudgetController getBudgetController() {
+        return budgetController;
+    }
+
+
+    public StatisticsController getStatisticsController() {
+        return statisticsController;
+    }
+
+
     public List<Tag> getAllTags() {
         return tagController.getAllTags();
     }
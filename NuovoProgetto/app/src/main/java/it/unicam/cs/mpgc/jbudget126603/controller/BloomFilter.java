@@ -0,0 +1,63 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+/**
+ * Bloom filter over 64-bit keys: a compact bit set answering "definitely absent"
+ * or "possibly present" in O(k), with k probes derived from the key by double hashing.
+ * Sized for an expected number of keys and a false positive probability;
+ * keys cannot be removed, so the owner rebuilds the filter when it needs to.
+ */
+public final class BloomFilter {
+
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a filter for the given number of keys and false positive probability.
+     *
+     * @param expectedKeys              the expected number of keys
+     * @param falsePositiveProbability  the target false positive probability, between 0 and 1
+     * @throws IllegalArgumentException if the arguments are out of range
+     */
+    public BloomFilter(int expectedKeys, double falsePositiveProbability) {
+        if (expectedKeys <= 0) throw new IllegalArgumentException("Expected keys must be positive");
+        if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+        }
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveProbability) / (ln2 * ln2));
+        this.bitCount = (int) Math.min(Math.max(m, 64), Integer.MAX_VALUE - 63);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * ln2));
+        this.bits = new long[(bitCount + 63) >>> 6];
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key the key
+     */
+    public void add(long key) {
+        int h1 = (int) key;
+        int h2 = (int) (key >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Tells whether a key may have been added.
+     *
+     * @param key the key
+     * @return false if the key was certainly never added, true if it possibly was
+     */
+    public boolean mightContain(long key) {
+        int h1 = (int) key;
+        int h2 = (int) (key >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+}
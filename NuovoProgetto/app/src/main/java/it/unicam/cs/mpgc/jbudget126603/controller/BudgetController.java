@@ -8,6 +8,7 @@ import java.util.List;
 
 /**
  * Defines the operations for calculating and analyzing the family budget.
+ * Balances are signed: incomes count as positive amounts, expenses as negative ones.
  */
 public interface BudgetController {
 
@@ -20,7 +21,7 @@ public interface BudgetController {
     Money calculateBalance(List<TransactionBase> transactions);
 
     /**
-     * Calculates the balance filtered by a specific tag.
+     * Calculates the balance filtered by a specific tag and its descendants.
      *
      * @param transactions the list of transactions to process
      * @param tag the tag used for filtering
@@ -38,7 +39,7 @@ public interface BudgetController {
     Money calculateBalanceByPeriod(List<TransactionBase> transactions, DateRange range);
 
     /**
-     * Calculates the balance for a tag within a given date range.
+     * Calculates the balance for a tag and its descendants within a given date range.
      *
      * @param transactions the list of transactions to process
      * @param range the date range used for filtering
@@ -0,0 +1,90 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.time.YearMonth;
+
+/**
+ * Immutable event raised when an expense makes the spending of a tag
+ * in a month reach or exceed its monthly limit.
+ */
+public final class BudgetLimitEvent {
+    private final String tagId;
+    private final YearMonth month;
+    private final Money limit;
+    private final Money spent;
+    private final TransactionBase transaction;
+
+    /**
+     * Creates a new BudgetLimitEvent.
+     *
+     * @param tagId       the ID of the tag whose limit was crossed
+     * @param month       the month in which the limit was crossed
+     * @param limit       the monthly limit of the tag
+     * @param spent       the amount spent in the month, including descendant tags
+     * @param transaction the transaction that crossed the limit
+     */
+    public BudgetLimitEvent(String tagId, YearMonth month, Money limit, Money spent, TransactionBase transaction) {
+        this.tagId = tagId;
+        this.month = month;
+        this.limit = limit;
+        this.spent = spent;
+        this.transaction = transaction;
+    }
+
+    /**
+     * Returns the ID of the tag whose limit was crossed.
+     *
+     * @return the tag ID
+     */
+    public String tagId() {
+        return tagId;
+    }
+
+    /**
+     * Returns the month in which the limit was crossed.
+     *
+     * @return the month
+     */
+    public YearMonth month() {
+        return month;
+    }
+
+    /**
+     * Returns the monthly limit of the tag.
+     *
+     * @return the limit
+     */
+    public Money limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the amount spent in the month, including descendant tags.
+     *
+     * @return the amount spent
+     */
+    public Money spent() {
+        return spent;
+    }
+
+    /**
+     * Returns the transaction that crossed the limit.
+     *
+     * @return the transaction
+     */
+    public TransactionBase transaction() {
+        return transaction;
+    }
+
+    @Override
+    public String toString() {
+        return "BudgetLimitEvent{" +
+                "tagId='" + tagId + '\'' +
+                ", month=" + month +
+                ", limit=" + limit +
+                ", spent=" + spent +
+                ", transaction=" + transaction.id() +
+                '}';
+    }
+}
@@ -0,0 +1,16 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+/**
+ * Listener notified when a monthly budget limit is reached or exceeded.
+ * Notifications are delivered on the thread that changed the transactions.
+ */
+@FunctionalInterface
+public interface BudgetLimitListener {
+
+    /**
+     * Called when an expense makes a tag reach or exceed its monthly limit.
+     *
+     * @param event the details of the crossed limit
+     */
+    void limitExceeded(BudgetLimitEvent event);
+}
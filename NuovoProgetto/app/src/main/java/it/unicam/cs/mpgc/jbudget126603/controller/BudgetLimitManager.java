@@ -0,0 +1,257 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import it.unicam.cs.mpgc.jbudget126603.persistency.PersistenceManager;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Envelope budgeting: a spending limit per tag per month.
+ * Keeps a running total of the expenses of every (tag, month) pair, rolled up
+ * to all the ancestors of the tag, and adjusts it in O(depth) on every change,
+ * so that a limit crossing is detected as soon as the expense is recorded,
+ * without rescanning the ledger. The tags each expense was credited to are recorded
+ * with it, so removing it debits exactly those; when the tag hierarchy changes
+ * (see {@link TagController#version()}), the totals are rebuilt from the recorded
+ * expenses against the new hierarchy. Limits are loaded and saved through the
+ * {@link PersistenceManager}, alongside the tags.
+ */
+public class BudgetLimitManager implements TransactionListener {
+
+    private final TagController tagController;
+    private final PersistenceManager persistence;
+    /** Monthly limit in cents, by tag ID. */
+    private final Map<String, Long> limits = new HashMap<>();
+    /** Expenses in cents by month and tag ID, including descendant tags. */
+    private final Map<YearMonth, Map<String, Long>> spent = new HashMap<>();
+    /** Tags (with their ancestors) each recorded expense was credited to. */
+    private final Map<TransactionBase, String[]> creditedTags = new IdentityHashMap<>();
+    /** Version of the tags the credited tags were resolved against. */
+    private long tagVersion;
+    private final List<BudgetLimitListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a new BudgetLimitManager and loads the persisted limits.
+     *
+     * @param tagController the controller providing the tag hierarchy for rollups
+     * @param persistence   the persistence manager the limits are loaded from and saved to
+     */
+    public BudgetLimitManager(TagController tagController, PersistenceManager persistence) {
+        this.tagController = tagController;
+        this.persistence = persistence;
+        this.tagVersion = tagController.version();
+        persistence.loadBudgetLimits().forEach((tagId, limit) -> limits.put(tagId, limit.cents()));
+    }
+
+    /**
+     * Registers a listener notified when a limit is reached or exceeded.
+     *
+     * @param listener the listener to register
+     */
+    public void addListener(BudgetLimitListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(BudgetLimitListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets the monthly spending limit of a tag, covering the tag and all its descendants,
+     * and saves the limits.
+     *
+     * @param tagId the ID of the tag
+     * @param limit the monthly limit
+     */
+    public synchronized void setLimit(String tagId, Money limit) {
+        limits.put(tagId, limit.cents());
+        saveLimits();
+    }
+
+    /**
+     * Removes the monthly limit of a tag and saves the limits.
+     *
+     * @param tagId the ID of the tag
+     * @return true if a limit was removed, false otherwise
+     */
+    public synchronized boolean removeLimit(String tagId) {
+        if (limits.remove(tagId) == null) return false;
+        saveLimits();
+        return true;
+    }
+
+    private void saveLimits() {
+        Map<String, Money> saved = new LinkedHashMap<>();
+        limits.forEach((tagId, cents) -> saved.put(tagId, Money.ofCents(cents)));
+        persistence.saveBudgetLimits(saved);
+    }
+
+    /**
+     * Returns the monthly limit of a tag.
+     *
+     * @param tagId the ID of the tag
+     * @return the limit, or empty if the tag has none
+     */
+    public synchronized Optional<Money> getLimit(String tagId) {
+        Long cents = limits.get(tagId);
+        return cents == null ? Optional.empty() : Optional.of(Money.ofCents(cents));
+    }
+
+    /**
+     * Returns how much was spent on a tag and its descendants in a month.
+     *
+     * @param tagId the ID of the tag
+     * @param month the month
+     * @return the total expenses
+     */
+    public synchronized Money getSpent(String tagId, YearMonth month) {
+        syncTags();
+        return Money.ofCents(spentCents(tagId, month));
+    }
+
+    @Override
+    public void transactionAdded(TransactionBase transaction) {
+        List<BudgetLimitEvent> events;
+        synchronized (this) {
+            syncTags();
+            Map<String, Long> before = snapshot(transaction);
+            apply(transaction, 1);
+            events = crossings(before, transaction);
+        }
+        fire(events);
+    }
+
+    @Override
+    public synchronized void transactionRemoved(TransactionBase transaction) {
+        syncTags();
+        apply(transaction, -1);
+    }
+
+    @Override
+    public void transactionUpdated(TransactionBase oldTransaction, TransactionBase newTransaction) {
+        List<BudgetLimitEvent> events;
+        synchronized (this) {
+            syncTags();
+            // compare with the totals before the update, so an unchanged expense does not fire again
+            Map<String, Long> before = snapshot(newTransaction);
+            apply(oldTransaction, -1);
+            apply(newTransaction, 1);
+            events = crossings(before, newTransaction);
+        }
+        fire(events);
+    }
+
+    /**
+     * Adds (sign 1) an expense to its tags and all their ancestors,
+     * or subtracts (sign -1) it from the tags it was added to.
+     */
+    private void apply(TransactionBase transaction, int sign) {
+        if (transaction.type() != Type.EXPENSE) return;
+        String[] tags;
+        if (sign > 0) {
+            tags = affectedTags(transaction).toArray(new String[0]);
+            creditedTags.put(transaction, tags);
+        } else {
+            tags = creditedTags.remove(transaction);
+            if (tags == null) return;
+        }
+        credit(transaction, tags, sign);
+    }
+
+    private void credit(TransactionBase transaction, String[] tags, int sign) {
+        YearMonth month = YearMonth.from(transaction.date());
+        Map<String, Long> monthTotals = spent.computeIfAbsent(month, m -> new HashMap<>());
+        long delta = sign * transaction.amount().cents();
+        for (String tagId : tags) {
+            monthTotals.merge(tagId, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        if (monthTotals.isEmpty()) spent.remove(month);
+    }
+
+    /**
+     * Rebuilds the totals if the tag hierarchy changed since the expenses were credited,
+     * in O(N * depth) for N recorded expenses.
+     */
+    private void syncTags() {
+        long version = tagController.version();
+        if (version == tagVersion) return;
+        tagVersion = version;
+        spent.clear();
+        for (Map.Entry<TransactionBase, String[]> entry : creditedTags.entrySet()) {
+            String[] tags = affectedTags(entry.getKey()).toArray(new String[0]);
+            entry.setValue(tags);
+            credit(entry.getKey(), tags, 1);
+        }
+    }
+
+    /**
+     * Returns the tags of an expense and their ancestors, each once.
+     * The set also stops parent cycles.
+     */
+    private Set<String> affectedTags(TransactionBase transaction) {
+        Set<String> affected = new LinkedHashSet<>();
+        for (Tag tag : transaction.tags()) {
+            String id = tag.id();
+            while (id != null && affected.add(id)) {
+                id = tagController.getTagById(id).map(Tag::parentId).orElse(null);
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Captures the current totals of the limited tags affected by an expense.
+     */
+    private Map<String, Long> snapshot(TransactionBase transaction) {
+        Map<String, Long> before = new LinkedHashMap<>();
+        if (transaction.type() != Type.EXPENSE || limits.isEmpty()) return before;
+        YearMonth month = YearMonth.from(transaction.date());
+        for (String tagId : affectedTags(transaction)) {
+            if (limits.containsKey(tagId)) before.put(tagId, spentCents(tagId, month));
+        }
+        return before;
+    }
+
+    /**
+     * Builds an event for every limited tag whose total went from below its limit to at least the limit.
+     */
+    private List<BudgetLimitEvent> crossings(Map<String, Long> before, TransactionBase transaction) {
+        List<BudgetLimitEvent> events = new ArrayList<>();
+        YearMonth month = YearMonth.from(transaction.date());
+        before.forEach((tagId, previous) -> {
+            long limit = limits.get(tagId);
+            long current = spentCents(tagId, month);
+            if (previous < limit && current >= limit) {
+                events.add(new BudgetLimitEvent(tagId, month, Money.ofCents(limit), Money.ofCents(current), transaction));
+            }
+        });
+        return events;
+    }
+
+    private long spentCents(String tagId, YearMonth month) {
+        return spent.getOrDefault(month, Map.of()).getOrDefault(tagId, 0L);
+    }
+
+    private void fire(List<BudgetLimitEvent> events) {
+        for (BudgetLimitEvent event : events) {
+            listeners.forEach(l -> l.limitExceeded(event));
+        }
+    }
+}
@@ -4,15 +4,71 @@ import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
 import it.unicam.cs.mpgc.jbudget126603.model.Money;
 import it.unicam.cs.mpgc.jbudget126603.model.Tag;
 import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
 
 /**
  * Implementation of BudgetController.
  * Provides methods to calculate balances over all transactions,
  * filtered by tag, date range, or both.
+ * Balances are signed: incomes are added and expenses subtracted.
+ * Tag filters include the whole subtree of the tag, at any depth.
+ * Filters are compiled {@link TransactionQuery} predicates.
+ * <p>
+ * Amounts are summed as exact signed cents. Lists at least as large as the
+ * parallel threshold are split into chunks summed in parallel on the common
+ * fork-join pool; since long addition is exact, the result is identical
+ * to the sequential one.
  */
 public class BudgetManager implements BudgetController {
 
+    /** Default minimum list size for parallel aggregation. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 100_000;
+
+    /** Number of transactions summed sequentially by each parallel chunk. */
+    private static final int CHUNK_SIZE = 16_384;
+
+    /** Source of the tag hierarchy, or null to match tags by ID only. */
+    private final TagController tagController;
+
+    /** Minimum list size for parallel aggregation. */
+    private final int parallelThreshold;
+
+    /**
+     * Creates a BudgetManager that matches tags by ID only, without descendants.
+     */
+    public BudgetManager() {
+        this(null);
+    }
+
+    /**
+     * Creates a BudgetManager whose tag filters include all descendant tags.
+     *
+     * @param tagController the controller providing the tag hierarchy
+     */
+    public BudgetManager(TagController tagController) {
+        this(tagController, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a BudgetManager with a custom parallel threshold.
+     *
+     * @param tagController     the controller providing the tag hierarchy, or null to match tags by ID only
+     * @param parallelThreshold minimum list size for parallel aggregation
+     * @throws IllegalArgumentException if the threshold is not positive
+     */
+    public BudgetManager(TagController tagController, int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        this.tagController = tagController;
+        this.parallelThreshold = parallelThreshold;
+    }
+
     /**
      * Calculates the total balance from a list of transactions.
      *
@@ -21,13 +77,12 @@ public class BudgetManager implements BudgetController {
      */
     @Override
     public Money calculateBalance(List<TransactionBase> transactions) {
-        return transactions.stream()
-                .map(TransactionBase::amount)
-                .reduce(new Money(0), Money::add);
+        return sum(transactions, t -> true);
     }
 
     /**
-     * Calculates the balance of transactions associated with a specific tag.
+     * Calculates the balance of transactions associated with a specific tag
+     * or with any of its descendants.
      *
      * @param transactions the list of transactions
      * @param tag          the tag used to filter transactions
@@ -35,10 +90,7 @@ public class BudgetManager implements BudgetController {
      */
     @Override
     public Money calculateBalanceByTag(List<TransactionBase> transactions, Tag tag) {
-        return transactions.stream()
-                .filter(t -> t.tags().contains(tag))
-                .map(TransactionBase::amount)
-                .reduce(new Money(0), Money::add);
+        return sum(transactions, TransactionQuery.builder().tag(tag.id()).build().compile(tagTree()));
     }
 
     /**
@@ -50,14 +102,12 @@ public class BudgetManager implements BudgetController {
      */
     @Override
     public Money calculateBalanceByPeriod(List<TransactionBase> transactions, DateRange range) {
-        return transactions.stream()
-                .filter(t -> range.contains(t.date()))
-                .map(TransactionBase::amount)
-                .reduce(new Money(0), Money::add);
+        return sum(transactions, TransactionQuery.builder().range(range).build().compile(tagTree()));
     }
 
     /**
-     * Calculates the balance of transactions that match both a date range and a tag.
+     * Calculates the balance of transactions that match both a date range and a tag,
+     * including the descendants of the tag.
      *
      * @param transactions the list of transactions
      * @param range        the date range filter
@@ -66,9 +116,60 @@ public class BudgetManager implements BudgetController {
      */
     @Override
     public Money calculateBalanceByPeriodAndTag(List<TransactionBase> transactions, DateRange range, Tag tag) {
-        return transactions.stream()
-                .filter(t -> range.contains(t.date()) && t.tags().contains(tag))
-                .map(TransactionBase::amount)
-                .reduce(new Money(0), Money::add);
+        return sum(transactions, TransactionQuery.builder().range(range).tag(tag.id()).build().compile(tagTree()));
+    }
+
+    /**
+     * Sums the signed amounts of the matching transactions, in exact cents,
+     * in parallel when the list reaches the threshold.
+     */
+    private Money sum(List<TransactionBase> transactions, Predicate<TransactionBase> filter) {
+        if (transactions.size() < parallelThreshold) {
+            return Money.ofCents(sumRange(transactions, filter, 0, transactions.size()));
+        }
+        List<TransactionBase> source = transactions instanceof RandomAccess
+                ? transactions
+                : new ArrayList<>(transactions);
+        return Money.ofCents(ForkJoinPool.commonPool().invoke(new SumTask(source, filter, 0, source.size())));
+    }
+
+    private static long sumRange(List<TransactionBase> transactions, Predicate<TransactionBase> filter, int from, int to) {
+        long cents = 0;
+        for (int i = from; i < to; i++) {
+            TransactionBase t = transactions.get(i);
+            if (filter.test(t)) cents = Math.addExact(cents, t.signedCents());
+        }
+        return cents;
+    }
+
+    /**
+     * Fork-join task summing a slice of a list by halving it down to chunks.
+     */
+    private static final class SumTask extends RecursiveTask<Long> {
+        private final List<TransactionBase> transactions;
+        private final Predicate<TransactionBase> filter;
+        private final int from;
+        private final int to;
+
+        private SumTask(List<TransactionBase> transactions, Predicate<TransactionBase> filter, int from, int to) {
+            this.transactions = transactions;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= CHUNK_SIZE) return sumRange(transactions, filter, from, to);
+            int mid = (from + to) >>> 1;
+            SumTask left = new SumTask(transactions, filter, from, mid);
+            left.fork();
+            long right = new SumTask(transactions, filter, mid, to).compute();
+            return Math.addExact(left.join(), right);
+        }
+    }
+
+    private TagTree tagTree() {
+        return tagController == null ? TagTree.build(List.of()) : tagController.getTagTree();
     }
 }
@@ -0,0 +1,31 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.List;
+
+/**
+ * An index able to narrow a {@link TransactionQuery} to a subset of the transactions
+ * without scanning them all. The planner of {@link CompiledQuery} asks every source
+ * for an estimate and reads the candidates from the cheapest one; the compiled
+ * predicate is then applied to the candidates, so a source may return a superset
+ * of the matching transactions, but must not miss any.
+ */
+public interface CandidateSource {
+
+    /**
+     * Estimates the number of candidates this source would return for a query.
+     *
+     * @param query the query
+     * @return the estimated number of candidates, or -1 if this source cannot narrow the query
+     */
+    long estimateCandidates(TransactionQuery query);
+
+    /**
+     * Returns a superset of the transactions matching a query.
+     * Only called when {@link #estimateCandidates(TransactionQuery)} is not negative.
+     *
+     * @param query the query
+     * @return the candidate transactions
+     */
+    List<TransactionBase> candidates(TransactionQuery query);
+}
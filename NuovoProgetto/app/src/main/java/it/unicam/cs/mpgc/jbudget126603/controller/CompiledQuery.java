@@ -0,0 +1,174 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A {@link TransactionQuery} compiled into a chain of conditions.
+ * Each condition has an estimated cost per evaluation and an estimated selectivity
+ * (the fraction of transactions it lets through); the chain evaluates first the
+ * conditions with the lowest cost / (1 - selectivity), which is the order minimizing
+ * the expected cost of a conjunction that stops at the first failing test.
+ * <p>
+ * When executed, the query is planned against the available {@link CandidateSource}s:
+ * the one promising the fewest candidates is read instead of scanning the whole list,
+ * and the chain is applied to its candidates.
+ */
+public final class CompiledQuery implements Predicate<TransactionBase> {
+
+    private final TransactionQuery query;
+    private final List<Condition> conditions = new ArrayList<>();
+    private final Predicate<TransactionBase> chain;
+
+    CompiledQuery(TransactionQuery query, TagTree tree) {
+        this.query = query;
+        DateRange range = query.range();
+        if (range != null && (range.start() != null || range.end() != null)) {
+            double selectivity = range.start() != null && range.end() != null ? 0.2 : 0.5;
+            conditions.add(new Condition("date", 1, selectivity, t -> range.contains(t.date())));
+        }
+        if (query.type() != null) {
+            conditions.add(new Condition("type", 1, 0.5, t -> t.type() == query.type()));
+        }
+        if (query.recurrenceType() != null) {
+            conditions.add(new Condition("recurrence", 1, 0.05,
+                    t -> t instanceof Transaction tx && tx.recurrenceType() == query.recurrenceType()));
+        }
+        if (query.recurring() != null) {
+            boolean recurring = query.recurring();
+            conditions.add(new Condition("recurring", 1, recurring ? 0.1 : 0.9,
+                    t -> (t instanceof Transaction tx && tx.recurrenceType() != null) == recurring));
+        }
+        if (query.minCents() != null || query.maxCents() != null) {
+            long min = query.minCents() == null ? Long.MIN_VALUE : query.minCents();
+            long max = query.maxCents() == null ? Long.MAX_VALUE : query.maxCents();
+            double selectivity = query.minCents() != null && query.maxCents() != null ? 0.3 : 0.5;
+            conditions.add(new Condition("amount", 2, selectivity, t -> {
+                long cents = t.amount().cents();
+                return cents >= min && cents <= max;
+            }));
+        }
+        if (query.tagId() != null) {
+            String tagId = query.tagId();
+            conditions.add(new Condition("tag", 3, 0.2, t -> {
+                for (Tag tag : t.tags()) {
+                    if (tree.isInSubtree(tag.id(), tagId)) return true;
+                }
+                return false;
+            }));
+        }
+        if (query.text() != null) {
+            String text = query.text();
+            conditions.add(new Condition("text", 20, 0.05, t -> TextNormalizer.matches(text, t.description())));
+        }
+        conditions.sort(Comparator.comparingDouble(Condition::rank));
+        this.chain = chainOf(conditions);
+    }
+
+    /**
+     * Returns the query this chain was compiled from.
+     *
+     * @return the query
+     */
+    public TransactionQuery query() {
+        return query;
+    }
+
+    /**
+     * Tests a transaction against all the conditions, in the compiled order.
+     *
+     * @param transaction the transaction
+     * @return true if the transaction matches the query
+     */
+    @Override
+    public boolean test(TransactionBase transaction) {
+        return chain.test(transaction);
+    }
+
+    /**
+     * Returns the names of the conditions in evaluation order.
+     *
+     * @return the condition names, most selective and cheapest first
+     */
+    public List<String> order() {
+        return conditions.stream().map(c -> c.name).toList();
+    }
+
+    /**
+     * Returns the matching transactions, reading them from the candidate source
+     * promising the fewest candidates, or scanning the whole list if no source
+     * can do better.
+     *
+     * @param all     all the transactions
+     * @param sources the indexes that may narrow the query
+     * @return the matching transactions
+     */
+    public List<TransactionBase> execute(Collection<TransactionBase> all, List<CandidateSource> sources) {
+        CandidateSource best = null;
+        long bestEstimate = all.size();
+        for (CandidateSource source : sources) {
+            long estimate = source.estimateCandidates(query);
+            if (estimate >= 0 && estimate < bestEstimate) {
+                best = source;
+                bestEstimate = estimate;
+            }
+        }
+        Collection<TransactionBase> input = best == null ? all : best.candidates(query);
+        List<TransactionBase> result = new ArrayList<>();
+        for (TransactionBase t : input) {
+            if (chain.test(t)) result.add(t);
+        }
+        return result;
+    }
+
+    private static Predicate<TransactionBase> chainOf(List<Condition> conditions) {
+        return switch (conditions.size()) {
+            case 0 -> t -> true;
+            case 1 -> conditions.get(0).predicate;
+            case 2 -> {
+                Predicate<TransactionBase> first = conditions.get(0).predicate;
+                Predicate<TransactionBase> second = conditions.get(1).predicate;
+                yield t -> first.test(t) && second.test(t);
+            }
+            default -> {
+                @SuppressWarnings("unchecked")
+                Predicate<TransactionBase>[] predicates = conditions.stream()
+                        .map(c -> c.predicate).toArray(Predicate[]::new);
+                yield t -> {
+                    for (Predicate<TransactionBase> p : predicates) {
+                        if (!p.test(t)) return false;
+                    }
+                    return true;
+                };
+            }
+        };
+    }
+
+    /**
+     * A single test with its estimated cost and selectivity.
+     */
+    private static final class Condition {
+        private final String name;
+        private final double cost;
+        private final double selectivity;
+        private final Predicate<TransactionBase> predicate;
+
+        private Condition(String name, double cost, double selectivity, Predicate<TransactionBase> predicate) {
+            this.name = name;
+            this.cost = cost;
+            this.selectivity = selectivity;
+            this.predicate = predicate;
+        }
+
+        private double rank() {
+            return cost / (1 - selectivity);
+        }
+    }
+}
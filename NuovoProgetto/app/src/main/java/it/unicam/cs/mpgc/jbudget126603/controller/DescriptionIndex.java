@@ -0,0 +1,152 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over the descriptions of the transactions, kept in sync
+ * through the {@link TransactionListener} notifications.
+ * Descriptions are tokenized and accent-folded by {@link TextNormalizer}; the
+ * postings of each token are the IDs of the transactions containing it.
+ * The sorted vocabulary answers short terms as prefixes, and a trigram index
+ * over the vocabulary answers longer terms anywhere inside a word, so a search
+ * touches the vocabulary and the matching postings only, never the descriptions.
+ * A multi-word search returns the transactions matching every word.
+ */
+public class DescriptionIndex implements TransactionListener, CandidateSource {
+
+    /** Transaction IDs by token. */
+    private final NavigableMap<String, Set<String>> postings = new TreeMap<>();
+    /** Tokens of the vocabulary by trigram. */
+    private final Map<String, Set<String>> tokensByTrigram = new HashMap<>();
+    private final Map<String, TransactionBase> byId = new HashMap<>();
+
+    @Override
+    public synchronized void transactionAdded(TransactionBase transaction) {
+        byId.put(transaction.id(), transaction);
+        for (String token : TextNormalizer.tokens(transaction.description())) {
+            Set<String> ids = postings.get(token);
+            if (ids == null) {
+                ids = new HashSet<>();
+                postings.put(token, ids);
+                for (String gram : TextNormalizer.trigrams(token)) {
+                    tokensByTrigram.computeIfAbsent(gram, g -> new HashSet<>()).add(token);
+                }
+            }
+            ids.add(transaction.id());
+        }
+    }
+
+    @Override
+    public synchronized void transactionRemoved(TransactionBase transaction) {
+        if (byId.remove(transaction.id()) == null) return;
+        for (String token : TextNormalizer.tokens(transaction.description())) {
+            Set<String> ids = postings.get(token);
+            if (ids == null) continue;
+            ids.remove(transaction.id());
+            if (ids.isEmpty()) {
+                postings.remove(token);
+                for (String gram : TextNormalizer.trigrams(token)) {
+                    Set<String> tokens = tokensByTrigram.get(gram);
+                    if (tokens == null) continue;
+                    tokens.remove(token);
+                    if (tokens.isEmpty()) tokensByTrigram.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of the transactions whose description matches every word of a text.
+     * The postings of the rarest word are collected first; the other words only
+     * filter that set, probing their postings instead of building them.
+     *
+     * @param text the search text
+     * @return the matching IDs, or all the indexed IDs if the text has no words
+     */
+    public synchronized Set<String> search(String text) {
+        List<List<Set<String>>> terms = new ArrayList<>();
+        for (String term : TextNormalizer.tokens(text)) {
+            List<Set<String>> termPostings = new ArrayList<>();
+            for (String token : matchingTokens(term)) termPostings.add(postings.get(token));
+            if (termPostings.isEmpty()) return new HashSet<>();
+            terms.add(termPostings);
+        }
+        if (terms.isEmpty()) return new HashSet<>(byId.keySet());
+        terms.sort(Comparator.comparingLong(DescriptionIndex::size));
+
+        Set<String> result = new HashSet<>();
+        for (Set<String> ids : terms.get(0)) result.addAll(ids);
+        for (int i = 1; i < terms.size() && !result.isEmpty(); i++) {
+            List<Set<String>> termPostings = terms.get(i);
+            result.removeIf(id -> {
+                for (Set<String> ids : termPostings) {
+                    if (ids.contains(id)) return false;
+                }
+                return true;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the candidates of a text query as the total postings of its rarest word,
+     * an upper bound of the result computed without building any set.
+     */
+    @Override
+    public synchronized long estimateCandidates(TransactionQuery query) {
+        if (query.text() == null) return -1;
+        long estimate = -1;
+        for (String term : TextNormalizer.tokens(query.text())) {
+            long postingsSize = 0;
+            for (String token : matchingTokens(term)) postingsSize += postings.get(token).size();
+            if (estimate < 0 || postingsSize < estimate) estimate = postingsSize;
+        }
+        return estimate < 0 ? byId.size() : estimate;
+    }
+
+    @Override
+    public synchronized List<TransactionBase> candidates(TransactionQuery query) {
+        Set<String> ids = search(query.text());
+        List<TransactionBase> result = new ArrayList<>(ids.size());
+        for (String id : ids) result.add(byId.get(id));
+        return result;
+    }
+
+    private static long size(List<Set<String>> termPostings) {
+        long size = 0;
+        for (Set<String> ids : termPostings) size += ids.size();
+        return size;
+    }
+
+    /**
+     * Returns the tokens of the vocabulary matched by a term: the tokens starting
+     * with a short term, or the tokens containing a longer one, found through the
+     * trigrams they share with it.
+     */
+    private Collection<String> matchingTokens(String term) {
+        if (term.length() < TextNormalizer.MIN_INFIX_LENGTH) {
+            return postings.subMap(term, true, term + Character.MAX_VALUE, false).keySet();
+        }
+        Set<String> candidates = null;
+        for (String gram : TextNormalizer.trigrams(term)) {
+            Set<String> tokens = tokensByTrigram.get(gram);
+            if (tokens == null) return List.of();
+            if (candidates == null || tokens.size() < candidates.size()) candidates = tokens;
+        }
+        List<String> result = new ArrayList<>();
+        for (String token : candidates) {
+            if (token.contains(term)) result.add(token);
+        }
+        return result;
+    }
+}
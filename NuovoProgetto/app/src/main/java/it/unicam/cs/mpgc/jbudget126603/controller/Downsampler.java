@@ -0,0 +1,69 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+/**
+ * Reduces evenly spaced series to a number of points a chart can draw,
+ * with the Largest-Triangle-Three-Buckets algorithm: the points between the first
+ * and the last are split into buckets, and from each bucket the point forming the
+ * largest triangle with the point kept before it and the average of the next bucket
+ * is kept. Peaks and troughs survive, so the shape of the series is preserved
+ * with one point per pixel, in O(N).
+ */
+public final class Downsampler {
+
+    private Downsampler() {
+    }
+
+    /**
+     * Selects the points to draw from a series of values at evenly spaced positions.
+     *
+     * @param values    the values, one per position
+     * @param threshold the maximum number of points to keep, at least 3
+     * @return the positions of the kept points, ascending, first and last included;
+     *         all the positions if there are no more than {@code threshold}
+     * @throws IllegalArgumentException if the threshold is less than 3
+     */
+    public static int[] largestTriangleThreeBuckets(long[] values, int threshold) {
+        if (threshold < 3) throw new IllegalArgumentException("Threshold must be at least 3");
+        int n = values.length;
+        if (n <= threshold) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = i;
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int previous = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket (the last point for the last bucket)
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, n);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += i;
+                averageY += values[i];
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            // Point of this bucket forming the largest triangle
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int kept = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((previous - averageX) * (values[i] - values[previous])
+                        - (previous - i) * (averageY - values[previous]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    kept = i;
+                }
+            }
+            selected[bucket + 1] = kept;
+            previous = kept;
+        }
+        selected[threshold - 1] = n - 1;
+        return selected;
+    }
+}
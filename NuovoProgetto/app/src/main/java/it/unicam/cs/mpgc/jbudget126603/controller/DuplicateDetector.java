@@ -0,0 +1,139 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detects duplicated transactions by content rather than by ID.
+ * The fingerprint of a transaction is a 64-bit hash of its date, amount, type and
+ * normalized description; a transaction is a duplicate when a transaction with the
+ * same fingerprint is already recorded. Lookups go through a {@link BloomFilter}
+ * first, which rejects most new rows without touching the hash set of fingerprints,
+ * so checking a row is O(1) however large the ledger or the import.
+ * <p>
+ * Near-duplicates are transactions of the same type and amount within
+ * {@link #NEAR_DAYS} days whose fingerprint differs, typically the same payment
+ * with a different description or booking date; they are reported for review,
+ * never rejected. The index is kept in sync through the {@link TransactionListener} notifications.
+ */
+public class DuplicateDetector implements TransactionListener {
+
+    /** Maximum distance in days between near-duplicates. */
+    public static final int NEAR_DAYS = 3;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    /** Number of recorded transactions by fingerprint. */
+    private final Map<Long, Integer> fingerprints = new HashMap<>();
+    /** Transactions by signed amount and block of NEAR_DAYS days. */
+    private final Map<Long, List<TransactionBase>> nearBuckets = new HashMap<>();
+    private int bloomCapacity = INITIAL_CAPACITY;
+    private BloomFilter bloom = new BloomFilter(bloomCapacity, FALSE_POSITIVE_PROBABILITY);
+
+    @Override
+    public synchronized void transactionAdded(TransactionBase transaction) {
+        long fingerprint = fingerprint(transaction);
+        fingerprints.merge(fingerprint, 1, Integer::sum);
+        bloom.add(fingerprint);
+        if (fingerprints.size() > bloomCapacity) rebuildBloom();
+        nearBuckets.computeIfAbsent(nearKey(transaction.signedCents(), block(transaction)), k -> new ArrayList<>())
+                .add(transaction);
+    }
+
+    @Override
+    public synchronized void transactionRemoved(TransactionBase transaction) {
+        long fingerprint = fingerprint(transaction);
+        fingerprints.computeIfPresent(fingerprint, (k, n) -> n == 1 ? null : n - 1);
+        long key = nearKey(transaction.signedCents(), block(transaction));
+        List<TransactionBase> bucket = nearBuckets.get(key);
+        if (bucket != null) {
+            bucket.remove(transaction);
+            if (bucket.isEmpty()) nearBuckets.remove(key);
+        }
+    }
+
+    /**
+     * Tells whether a transaction with the same date, amount, type and description is already recorded.
+     *
+     * @param transaction the transaction to check
+     * @return true if the transaction is a duplicate
+     */
+    public synchronized boolean isDuplicate(TransactionBase transaction) {
+        long fingerprint = fingerprint(transaction);
+        return bloom.mightContain(fingerprint) && fingerprints.containsKey(fingerprint);
+    }
+
+    /**
+     * Returns the recorded transactions that look like the given one without being
+     * exact duplicates: same type and amount, dates at most {@link #NEAR_DAYS} days apart,
+     * different fingerprint.
+     *
+     * @param transaction the transaction to check
+     * @return the near-duplicates, empty if there are none
+     */
+    public synchronized List<TransactionBase> findNearDuplicates(TransactionBase transaction) {
+        List<TransactionBase> result = new ArrayList<>();
+        long cents = transaction.signedCents();
+        long block = block(transaction);
+        long fingerprint = fingerprint(transaction);
+        for (long b = block - 1; b <= block + 1; b++) {
+            for (TransactionBase other : nearBuckets.getOrDefault(nearKey(cents, b), List.of())) {
+                if (other.signedCents() == cents
+                        && !other.id().equals(transaction.id())
+                        && Math.abs(other.date().toEpochDay() - transaction.date().toEpochDay()) <= NEAR_DAYS
+                        && fingerprint(other) != fingerprint) {
+                    result.add(other);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the content fingerprint of a transaction: a 64-bit hash of its date,
+     * amount, type and description, the latter accent-folded, lowercased and
+     * reduced to its words.
+     *
+     * @param transaction the transaction
+     * @return the fingerprint
+     */
+    public static long fingerprint(TransactionBase transaction) {
+        long hash = 0xcbf29ce484222325L;
+        for (String token : TextNormalizer.tokens(transaction.description())) {
+            for (int i = 0; i < token.length(); i++) {
+                hash = (hash ^ token.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ ' ') * 0x100000001b3L;
+        }
+        hash = mix(hash ^ transaction.date().toEpochDay());
+        hash = mix(hash ^ transaction.amount().cents());
+        return mix(hash ^ transaction.type().ordinal());
+    }
+
+    private void rebuildBloom() {
+        while (bloomCapacity < fingerprints.size()) bloomCapacity *= 2;
+        bloom = new BloomFilter(bloomCapacity, FALSE_POSITIVE_PROBABILITY);
+        for (long fingerprint : fingerprints.keySet()) bloom.add(fingerprint);
+    }
+
+    private static long block(TransactionBase transaction) {
+        return Math.floorDiv(transaction.date().toEpochDay(), NEAR_DAYS + 1);
+    }
+
+    private static long nearKey(long signedCents, long block) {
+        return mix(signedCents * 0x9e3779b97f4a7c15L + block);
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreading every input bit over the whole result.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
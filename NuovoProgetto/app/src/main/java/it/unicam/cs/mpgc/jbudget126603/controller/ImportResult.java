@@ -0,0 +1,69 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of {@link AppController#importTransactions(List)}:
+ * the rows added, the rows skipped as duplicates, and the added rows
+ * that look like already recorded transactions and deserve a review.
+ */
+public final class ImportResult {
+
+    private final List<TransactionBase> added;
+    private final List<TransactionBase> duplicates;
+    private final Map<TransactionBase, List<TransactionBase>> nearDuplicates;
+
+    /**
+     * Creates a new ImportResult.
+     *
+     * @param added          the imported transactions
+     * @param duplicates     the rows skipped because already recorded
+     * @param nearDuplicates the imported transactions with their similar recorded ones
+     */
+    public ImportResult(List<TransactionBase> added, List<TransactionBase> duplicates,
+                        Map<TransactionBase, List<TransactionBase>> nearDuplicates) {
+        this.added = List.copyOf(added);
+        this.duplicates = List.copyOf(duplicates);
+        this.nearDuplicates = Collections.unmodifiableMap(new LinkedHashMap<>(nearDuplicates));
+    }
+
+    /**
+     * Returns the imported transactions.
+     *
+     * @return the added transactions
+     */
+    public List<TransactionBase> added() {
+        return added;
+    }
+
+    /**
+     * Returns the rows skipped because a transaction with the same ID or content was already recorded.
+     *
+     * @return the duplicates
+     */
+    public List<TransactionBase> duplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Returns the imported transactions that resemble already recorded ones, with those ones.
+     *
+     * @return the near-duplicates, by imported transaction
+     */
+    public Map<TransactionBase, List<TransactionBase>> nearDuplicates() {
+        return nearDuplicates;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "added=" + added.size() +
+                ", duplicates=" + duplicates.size() +
+                ", nearDuplicates=" + nearDuplicates.size() +
+                '}';
+    }
+}
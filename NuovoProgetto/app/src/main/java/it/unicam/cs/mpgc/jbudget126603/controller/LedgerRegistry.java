@@ -0,0 +1,290 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.persistency.XMLPersistenceManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Registry hosting many independent ledgers, each one backed by its own AppController.
+ * Every ledger is stored in its own directory under a common base directory,
+ * is loaded lazily the first time it is used and is evicted from memory
+ * once it has been idle for longer than the configured timeout.
+ * Work on different ledgers runs in parallel on a shared executor, while work
+ * on the same ledger is serialized by the lock owned by that ledger only.
+ */
+public class LedgerRegistry implements AutoCloseable {
+
+    /** Name of the transactions file inside each ledger directory. */
+    public static final String TRANSACTIONS_FILE = "transactions.xml";
+
+    /** Name of the tags file inside each ledger directory. */
+    public static final String TAGS_FILE = "tags.xml";
+
+    private static final Pattern LEDGER_ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final Path baseDirectory;
+    private final ExecutorService executor;
+    private final long idleTimeoutNanos;
+    private final ConcurrentMap<String, Ledger> ledgers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Creates a new LedgerRegistry.
+     * Idle ledgers are checked periodically, at half the idle timeout.
+     *
+     * @param baseDirectory the directory containing one sub-directory per ledger
+     * @param executor      the shared executor running work submitted for any ledger
+     * @param idleTimeout   how long a ledger may stay unused before being evicted
+     * @throws IllegalArgumentException if the idle timeout is not positive
+     */
+    public LedgerRegistry(Path baseDirectory, ExecutorService executor, Duration idleTimeout) {
+        this.baseDirectory = Objects.requireNonNull(baseDirectory, "baseDirectory cannot be null");
+        this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+        if (idleTimeout.isZero() || idleTimeout.isNegative()) {
+            throw new IllegalArgumentException("Idle timeout must be positive");
+        }
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ledger-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, idleTimeout.toMillis() / 2);
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the given work asynchronously on the shared executor,
+     * holding the lock of the target ledger. The ledger is loaded if needed.
+     *
+     * @param ledgerId the ledger id
+     * @param work     the work to run against the ledger's controller
+     * @param <T>      the type of the result
+     * @return a future completed with the result of the work
+     */
+    public <T> CompletableFuture<T> submit(String ledgerId, Function<AppController, T> work) {
+        validateId(ledgerId);
+        return CompletableFuture.supplyAsync(() -> execute(ledgerId, work), executor);
+    }
+
+    /**
+     * Runs the given work on the calling thread, holding the lock of the target ledger.
+     * The ledger is loaded if needed.
+     *
+     * @param ledgerId the ledger id
+     * @param work     the work to run against the ledger's controller
+     * @param <T>      the type of the result
+     * @return the result of the work
+     */
+    public <T> T execute(String ledgerId, Function<AppController, T> work) {
+        while (true) {
+            Ledger ledger = ledgers.computeIfAbsent(ledgerId, this::newLedger);
+            ledger.lock.lock();
+            try {
+                if (ledger.evicted) continue; // removed while we were waiting: look it up again
+                AppController controller = ledger.controller();
+                ledger.touch();
+                return work.apply(controller);
+            } finally {
+                ledger.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Acquires a ledger for long-lived use, for instance by a window showing it.
+     * The ledger is loaded if needed and is never evicted while the handle is open.
+     *
+     * @param ledgerId the ledger id
+     * @return an open handle giving access to the ledger's controller
+     */
+    public LedgerHandle acquire(String ledgerId) {
+        return execute(ledgerId, controller -> {
+            Ledger ledger = ledgers.get(ledgerId);
+            ledger.users++;
+            return new LedgerHandle(ledger, controller);
+        });
+    }
+
+    /**
+     * Returns the directory where the given ledger is stored.
+     *
+     * @param ledgerId the ledger id
+     * @return the ledger directory
+     * @throws IllegalArgumentException if the id contains characters other than letters, digits, '-' and '_'
+     */
+    public Path ledgerDirectory(String ledgerId) {
+        validateId(ledgerId);
+        return baseDirectory.resolve(ledgerId);
+    }
+
+    /**
+     * Returns the ids of the ledgers currently held in memory.
+     *
+     * @return an immutable set of ledger ids
+     */
+    public Set<String> loadedLedgers() {
+        return Set.copyOf(ledgers.keySet());
+    }
+
+    /**
+     * Evicts every ledger that has been idle for longer than the idle timeout
+     * and is not acquired. Ledgers that are busy are skipped.
+     *
+     * @return the number of evicted ledgers
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Ledger ledger : ledgers.values()) {
+            if (now - ledger.lastAccess >= idleTimeoutNanos && evict(ledger, false)) evicted++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Evicts a ledger immediately, unless it is busy or acquired.
+     *
+     * @param ledgerId the ledger id
+     * @return true if the ledger was evicted, false otherwise
+     */
+    public boolean evict(String ledgerId) {
+        Ledger ledger = ledgers.get(ledgerId);
+        return ledger != null && evict(ledger, false);
+    }
+
+    /**
+     * Stops the eviction task and drops every ledger from memory.
+     * The shared executor is owned by the caller and is not shut down.
+     */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        for (Ledger ledger : ledgers.values()) evict(ledger, true);
+    }
+
+    private boolean evict(Ledger ledger, boolean force) {
+        if (!ledger.lock.tryLock()) return false;
+        try {
+            if (ledger.evicted || (ledger.users > 0 && !force)) return false;
+            // AppController persists on every change, so dropping it loses nothing
+            ledger.evicted = true;
+            ledger.controller = null;
+            ledgers.remove(ledger.id, ledger);
+            return true;
+        } finally {
+            ledger.lock.unlock();
+        }
+    }
+
+    private Ledger newLedger(String ledgerId) {
+        return new Ledger(ledgerId, ledgerDirectory(ledgerId));
+    }
+
+    private static void validateId(String ledgerId) {
+        if (ledgerId == null || !LEDGER_ID.matcher(ledgerId).matches()) {
+            throw new IllegalArgumentException("Invalid ledger id: " + ledgerId);
+        }
+    }
+
+    /**
+     * In-memory state of a single ledger. All fields except lastAccess are guarded by lock.
+     */
+    private static final class Ledger {
+        private final String id;
+        private final Path directory;
+        private final ReentrantLock lock = new ReentrantLock();
+        private AppController controller;
+        private int users;
+        private boolean evicted;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Ledger(String id, Path directory) {
+            this.id = id;
+            this.directory = directory;
+        }
+
+        private AppController controller() {
+            if (controller == null) {
+                try {
+                    Files.createDirectories(directory);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot create ledger directory " + directory, e);
+                }
+                controller = new AppController(new XMLPersistenceManager(
+                        directory.resolve(TRANSACTIONS_FILE).toString(),
+                        directory.resolve(TAGS_FILE).toString()));
+            }
+            return controller;
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * Long-lived access to a ledger obtained with {@link #acquire(String)}.
+     * Closing the handle makes the ledger eligible for eviction again.
+     */
+    public static final class LedgerHandle implements AutoCloseable {
+        private final Ledger ledger;
+        private final AppController controller;
+        private boolean closed;
+
+        private LedgerHandle(Ledger ledger, AppController controller) {
+            this.ledger = ledger;
+            this.controller = controller;
+        }
+
+        /**
+         * Returns the id of the acquired ledger.
+         *
+         * @return the ledger id
+         */
+        public String ledgerId() {
+            return ledger.id;
+        }
+
+        /**
+         * Returns the controller of the acquired ledger.
+         *
+         * @return the ledger's controller
+         */
+        public AppController controller() {
+            return controller;
+        }
+
+        /**
+         * Releases the ledger. Further calls have no effect.
+         */
+        @Override
+        public void close() {
+            ledger.lock.lock();
+            try {
+                if (closed) return;
+                closed = true;
+                ledger.users--;
+                ledger.touch();
+            } finally {
+                ledger.lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable copy of the transactions as they were after a completed change
+ * (see {@link AppController#snapshot()}). It can be read by any number of threads
+ * without locking, and never reflects a change, or a batch of changes, half applied.
+ */
+public final class LedgerSnapshot {
+
+    private final List<TransactionBase> transactions;
+    private final Map<String, TransactionBase> transactionsById;
+
+    LedgerSnapshot(List<TransactionBase> transactions, Map<String, TransactionBase> transactionsById) {
+        this.transactions = Collections.unmodifiableList(new ArrayList<>(transactions));
+        this.transactionsById = Collections.unmodifiableMap(new HashMap<>(transactionsById));
+    }
+
+    /**
+     * Returns the transactions, in the order of the ledger.
+     *
+     * @return an unmodifiable list of the transactions
+     */
+    public List<TransactionBase> transactions() {
+        return transactions;
+    }
+
+    /**
+     * Retrieves a transaction by id.
+     *
+     * @param id the transaction id
+     * @return optional with found transaction or empty
+     */
+    public Optional<TransactionBase> getTransactionById(String id) {
+        return Optional.ofNullable(transactionsById.get(id));
+    }
+
+    /**
+     * Returns the transactions matching a query, scanning the snapshot.
+     *
+     * @param query the query
+     * @param tree  the tag tree the tag condition is resolved against
+     * @return the matching transactions
+     */
+    public List<TransactionBase> query(TransactionQuery query, TagTree tree) {
+        return query.compile(tree).execute(transactions, List.of());
+    }
+}
@@ -0,0 +1,217 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Prefix-sum index answering period balances in O(log M + 31),
+ * where M is the number of months covered by the ledger.
+ * Signed cents (incomes positive, expenses negative) are accumulated per month
+ * in a Fenwick tree, updated in O(log M) on every change, and per day only for
+ * the months that have transactions, so memory follows the data rather than
+ * the distance between the oldest and the newest date.
+ * The covered window of months grows automatically when a transaction falls outside it,
+ * within the years {@link #MIN_DATE} to {@link #MAX_DATE}.
+ * Running balances day by day are produced in O(log M + R) for a range of R days,
+ * which lets charts fetch the detail of any range on demand.
+ */
+public class PeriodBalanceIndex implements TransactionListener {
+
+    /** First day a transaction can have. */
+    public static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    /** Last day a transaction can have. */
+    public static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private static final int MONTHS = (MAX_DATE.getYear() - MIN_DATE.getYear() + 1) * 12;
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Month (see {@link #monthOf(LocalDate)}) stored at position 0. */
+    private int origin;
+    /** Signed cents of each month of the window. */
+    private long[] monthly = new long[0];
+    /** Fenwick tree over monthly, 1-based. */
+    private long[] tree = new long[1];
+    /** Signed cents of each day of the months with transactions, indexed by day of month - 1. */
+    private final Map<Integer, long[]> dailyByMonth = new HashMap<>();
+    /** Number of transactions of each day, used to find the span of the ledger. */
+    private final TreeMap<LocalDate, Integer> days = new TreeMap<>();
+
+    /**
+     * Tells whether a date can be indexed.
+     *
+     * @param date the date
+     * @return true if the date is between {@link #MIN_DATE} and {@link #MAX_DATE}
+     */
+    public static boolean supports(LocalDate date) {
+        return !date.isBefore(MIN_DATE) && !date.isAfter(MAX_DATE);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the date of the transaction is not {@link #supports(LocalDate) supported};
+     *                                  the index is then left unchanged
+     */
+    @Override
+    public synchronized void transactionAdded(TransactionBase transaction) {
+        add(transaction.date(), transaction.signedCents());
+        days.merge(transaction.date(), 1, Integer::sum);
+    }
+
+    @Override
+    public synchronized void transactionRemoved(TransactionBase transaction) {
+        if (!days.containsKey(transaction.date())) return;
+        add(transaction.date(), -transaction.signedCents());
+        days.computeIfPresent(transaction.date(), (d, n) -> n == 1 ? null : n - 1);
+    }
+
+    /**
+     * Returns the days of the first and the last transaction.
+     *
+     * @return the span of the ledger, empty if there are no transactions
+     */
+    public synchronized Optional<DateRange> span() {
+        return days.isEmpty() ? Optional.empty() : Optional.of(new DateRange(days.firstKey(), days.lastKey()));
+    }
+
+    /**
+     * Returns the balance at the end of each day between two dates,
+     * all the transactions before {@code from} included.
+     *
+     * @param from the first day (inclusive)
+     * @param to   the last day (inclusive)
+     * @return one running balance in cents per day, oldest first
+     * @throws IllegalArgumentException if {@code from} is after {@code to}
+     */
+    public synchronized long[] runningBalances(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) throw new IllegalArgumentException("Start date cannot be after end date");
+        long[] balances = new long[Math.toIntExact(to.toEpochDay() - from.toEpochDay() + 1)];
+        long running = balanceCents(null, from.minusDays(1));
+        LocalDate day = from;
+        for (int i = 0; i < balances.length; i++, day = day.plusDays(1)) {
+            running += dailyCents(day);
+            balances[i] = running;
+        }
+        return balances;
+    }
+
+    /**
+     * Returns the balance of the transactions within the given range.
+     *
+     * @param range the date range, possibly unbounded
+     * @return the balance (incomes minus expenses)
+     */
+    public Money balance(DateRange range) {
+        return Money.ofCents(balanceCents(range.start(), range.end()));
+    }
+
+    /**
+     * Returns the balance in cents of the transactions between two dates.
+     *
+     * @param from the first day (inclusive), or null if unbounded
+     * @param to   the last day (inclusive), or null if unbounded
+     * @return the balance in cents (incomes minus expenses)
+     */
+    public synchronized long balanceCents(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) return 0;
+        long untilTo = to == null ? total() : upTo(to);
+        long beforeFrom = from == null || !from.isAfter(MIN_DATE) ? 0 : upTo(from.minusDays(1));
+        return untilTo - beforeFrom;
+    }
+
+    /**
+     * Returns the net amount in cents of a single day.
+     *
+     * @param day the day
+     * @return the balance of that day in cents
+     */
+    public synchronized long dailyCents(LocalDate day) {
+        if (!supports(day)) return 0;
+        long[] daily = dailyByMonth.get(monthOf(day));
+        return daily == null ? 0 : daily[day.getDayOfMonth() - 1];
+    }
+
+    private void add(LocalDate date, long cents) {
+        if (!supports(date)) {
+            throw new IllegalArgumentException("Date " + date + " is outside the supported range "
+                    + MIN_DATE + " to " + MAX_DATE);
+        }
+        int month = monthOf(date);
+        ensureCovers(month);
+        dailyByMonth.computeIfAbsent(month, m -> new long[31])[date.getDayOfMonth() - 1] += cents;
+        int pos = month - origin;
+        monthly[pos] += cents;
+        for (int i = pos + 1; i < tree.length; i += i & -i) tree[i] += cents;
+    }
+
+    /** Balance of all the days up to the given one (inclusive). */
+    private long upTo(LocalDate day) {
+        if (day.isBefore(MIN_DATE) || monthly.length == 0) return 0;
+        if (day.isAfter(MAX_DATE)) return total();
+        int pos = monthOf(day) - origin;
+        if (pos < 0) return 0;
+        if (pos >= monthly.length) return total();
+        long sum = pos > 0 ? prefix(pos - 1) : 0;
+        long[] daily = dailyByMonth.get(monthOf(day));
+        if (daily != null) {
+            for (int i = 0; i < day.getDayOfMonth(); i++) sum += daily[i];
+        }
+        return sum;
+    }
+
+    private long total() {
+        return monthly.length == 0 ? 0 : prefix(monthly.length - 1);
+    }
+
+    /** Sum of positions 0..pos (inclusive). */
+    private long prefix(int pos) {
+        long sum = 0;
+        for (int i = pos + 1; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+
+    /** Number of months between MIN_DATE and the month of a supported date. */
+    private static int monthOf(LocalDate date) {
+        return (date.getYear() - MIN_DATE.getYear()) * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Grows the window so that it contains the given month, rebuilding the tree in O(M).
+     * Extra room is left on the side that had to grow, without leaving the supported months.
+     */
+    private void ensureCovers(int month) {
+        int n = monthly.length;
+        if (n > 0 && month >= origin && month < origin + n) return;
+
+        int newOrigin;
+        int newCapacity;
+        if (n == 0) {
+            newCapacity = INITIAL_CAPACITY;
+            newOrigin = month - INITIAL_CAPACITY / 2;
+        } else {
+            int low = Math.min(origin, month);
+            int high = Math.max(origin + n - 1, month);
+            newCapacity = Math.min(MONTHS, Math.max(2 * n, (high - low + 1) * 2));
+            newOrigin = month < origin ? high - newCapacity + 1 : low;
+        }
+        newOrigin = Math.max(0, Math.min(newOrigin, MONTHS - newCapacity));
+
+        long[] newMonthly = new long[newCapacity];
+        if (n > 0) System.arraycopy(monthly, 0, newMonthly, origin - newOrigin, n);
+        long[] newTree = new long[newCapacity + 1];
+        for (int i = 1; i <= newCapacity; i++) {
+            newTree[i] += newMonthly[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= newCapacity) newTree[parent] += newTree[i];
+        }
+        origin = newOrigin;
+        monthly = newMonthly;
+        tree = newTree;
+    }
+}
@@ -0,0 +1,161 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable streaming quantile sketch for non-negative amounts in cents,
+ * based on logarithmic buckets (the DDSketch scheme).
+ * A value x goes to bucket ceil(log(x) / log(gamma)) with gamma = (1 + a) / (1 - a),
+ * so every bucket spans values within a relative error a of its representative.
+ * <p>
+ * Error bound: for any q, the returned value v' satisfies |v' - v| &lt;= a * v,
+ * where v is the exact q-quantile of the inserted values (the value of rank floor(q * (n - 1))).
+ * Insertion and removal are O(1) amortized; the memory grows with the logarithm
+ * of the ratio between the largest and the smallest value, not with the number of values.
+ * Unlike rank-based sketches, removal is exact, which lets the sketch follow
+ * updated and deleted transactions.
+ */
+public final class QuantileSketch {
+
+    /** Default relative accuracy: 1%. */
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    /** Counts of the buckets from index offset to offset + counts.length - 1. */
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Creates a sketch with the default relative accuracy.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * Creates a sketch with the given relative accuracy.
+     *
+     * @param relativeAccuracy the maximum relative error of the returned quantiles
+     * @throws IllegalArgumentException if the accuracy is not between 0 and 1 (exclusive)
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param cents the value in cents
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public void add(long cents) {
+        update(cents, 1);
+    }
+
+    /**
+     * Removes a value previously added. Removing a value that was never added
+     * leaves the sketch in an undefined state.
+     *
+     * @param cents the value in cents
+     */
+    public void remove(long cents) {
+        update(cents, -1);
+    }
+
+    /**
+     * Merges another sketch into this one.
+     *
+     * @param other the sketch to merge
+     * @throws IllegalArgumentException if the two sketches have different accuracies
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracies");
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                int index = other.offset + i;
+                ensureCapacity(index);
+                counts[index - offset] += other.counts[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated q-quantile, within the relative accuracy of the sketch.
+     *
+     * @param q the quantile, between 0 and 1
+     * @return the estimated value in cents, or NaN if the sketch is empty
+     * @throws IllegalArgumentException if q is outside [0, 1]
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        if (count == 0) return Double.NaN;
+        long rank = (long) Math.floor(q * (count - 1));
+        if (rank < zeroCount) return 0;
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) return 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+        }
+        return 2 * Math.pow(gamma, offset + counts.length - 1) / (gamma + 1);
+    }
+
+    /**
+     * Returns the number of values in the sketch.
+     *
+     * @return the count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the relative accuracy of the sketch.
+     *
+     * @return the relative accuracy
+     */
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    private void update(long cents, int delta) {
+        if (cents < 0) throw new IllegalArgumentException("Value cannot be negative");
+        count += delta;
+        if (cents == 0) {
+            zeroCount += delta;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(cents) / logGamma);
+        ensureCapacity(index);
+        counts[index - offset] += delta;
+    }
+
+    private void ensureCapacity(int index) {
+        if (counts.length == 0) {
+            counts = new long[16];
+            offset = index - 8;
+        } else if (index < offset) {
+            int grow = Math.max(offset - index, counts.length);
+            long[] bigger = new long[counts.length + grow];
+            System.arraycopy(counts, 0, bigger, grow, counts.length);
+            counts = bigger;
+            offset -= grow;
+        } else if (index >= offset + counts.length) {
+            int grow = Math.max(index - offset - counts.length + 1, counts.length);
+            counts = Arrays.copyOf(counts, counts.length + grow);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import java.util.Objects;
+
+/**
+ * One level of the order of a {@link SortedTransactionIndex}: a column and a direction.
+ */
+public final class SortKey {
+
+    /**
+     * The columns transactions can be sorted by.
+     */
+    public enum Column {
+        /** Date of the transaction. */
+        DATE,
+        /** Amount of the transaction. */
+        AMOUNT,
+        /** Name of the first tag, ignoring case; "Other" for untagged transactions. */
+        TAG,
+        /** Type of the transaction. */
+        TYPE
+    }
+
+    private final Column column;
+    private final boolean ascending;
+
+    /**
+     * Creates a new SortKey.
+     *
+     * @param column    the column to sort by (cannot be null)
+     * @param ascending true for ascending order, false for descending
+     * @throws NullPointerException if the column is null
+     */
+    public SortKey(Column column, boolean ascending) {
+        this.column = Objects.requireNonNull(column, "column cannot be null");
+        this.ascending = ascending;
+    }
+
+    /**
+     * Returns the column to sort by.
+     *
+     * @return the column
+     */
+    public Column column() {
+        return column;
+    }
+
+    /**
+     * Tells whether the order is ascending.
+     *
+     * @return true for ascending order, false for descending
+     */
+    public boolean ascending() {
+        return ascending;
+    }
+
+    @Override
+    public String toString() {
+        return column + (ascending ? " ASC" : " DESC");
+    }
+}
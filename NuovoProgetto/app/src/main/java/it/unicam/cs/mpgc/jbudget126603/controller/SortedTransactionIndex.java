@@ -0,0 +1,249 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The transactions in display order, kept sorted through the {@link TransactionListener} notifications,
+ * with an optional filter choosing the transactions shown.
+ * The order is made of one or more {@link SortKey}s (by default the name of the first tag,
+ * untagged ones as "Other"), then the order of arrival.
+ * The sort keys of a transaction (epoch day, cents, type ordinal and lowercased tag name)
+ * are computed once, when it arrives, so comparisons read primitive fields only.
+ * The tag names are taken from the {@link TagController}; when its
+ * {@link TagController#version() version} changes, they are computed again
+ * and the transactions re-sorted, before the index is next read or changed.
+ * A change is applied by binary search, in the sorted transactions and in the shown ones,
+ * instead of re-sorting or re-filtering, so views can read any window of rows by position
+ * without copying or sorting the ledger. Changing the order re-sorts once;
+ * changing the filter scans once the transactions, already in order.
+ */
+public class SortedTransactionIndex implements TransactionListener {
+
+    /** Name used to sort untagged transactions. */
+    public static final String UNTAGGED_NAME = "Other";
+
+    /** Order used until another one is set. */
+    public static final List<SortKey> DEFAULT_ORDER = List.of(new SortKey(SortKey.Column.TAG, true));
+
+    private final TagController tagController;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<TransactionBase, Entry> entriesByTransaction = new IdentityHashMap<>();
+    /** The entries matching the filter, in order; null when there is no filter. */
+    private List<Entry> shown;
+    private Predicate<TransactionBase> filter;
+    private SortKey.Column[] columns;
+    private boolean[] descending;
+    private long nextSequence;
+    private long version;
+    private long tagVersion;
+
+    /**
+     * Creates an empty index in the default order.
+     *
+     * @param tagController the tags, whose current names are used to sort
+     */
+    public SortedTransactionIndex(TagController tagController) {
+        this.tagController = tagController;
+        this.tagVersion = tagController.version();
+        applyOrder(DEFAULT_ORDER);
+    }
+
+    @Override
+    public synchronized void transactionAdded(TransactionBase transaction) {
+        syncTags();
+        Entry entry = new Entry(transaction, tagKey(transaction), nextSequence++);
+        insert(entries, entry);
+        if (shown != null && filter.test(transaction)) insert(shown, entry);
+        entriesByTransaction.put(transaction, entry);
+        version++;
+    }
+
+    @Override
+    public synchronized void transactionRemoved(TransactionBase transaction) {
+        syncTags();
+        Entry entry = entriesByTransaction.remove(transaction);
+        if (entry == null) return;
+        entries.remove(Collections.binarySearch(entries, entry, this::compare));
+        if (shown != null) {
+            int position = Collections.binarySearch(shown, entry, this::compare);
+            if (position >= 0) shown.remove(position);
+        }
+        version++;
+    }
+
+    /**
+     * Sorts the transactions by the given keys, then by order of arrival.
+     *
+     * @param order the sort keys, most significant first; empty for the default order
+     */
+    public synchronized void setOrder(List<SortKey> order) {
+        syncTags();
+        applyOrder(order.isEmpty() ? DEFAULT_ORDER : order);
+        entries.sort(this::compare);
+        if (shown != null) shown.sort(this::compare);
+        version++;
+    }
+
+    /**
+     * Shows only the transactions matching a filter, which is then applied to every
+     * transaction arriving. When the IDs of the transactions currently matching are
+     * known, for example from an index, they replace the filter for the transactions
+     * already present, so that the filter itself is only evaluated for changes.
+     *
+     * @param filter         the filter, or null to show all the transactions
+     * @param currentMatches the IDs of the transactions currently matching the filter, or null if unknown
+     */
+    public synchronized void setFilter(Predicate<TransactionBase> filter, Set<String> currentMatches) {
+        syncTags();
+        this.filter = filter;
+        if (filter == null) {
+            shown = null;
+        } else {
+            shown = new ArrayList<>();
+            for (Entry entry : entries) {
+                boolean matches = currentMatches != null
+                        ? currentMatches.contains(entry.transaction.id())
+                        : filter.test(entry.transaction);
+                if (matches) shown.add(entry);
+            }
+        }
+        version++;
+    }
+
+    /**
+     * Returns the number of transactions shown, those matching the filter if there is one.
+     *
+     * @return the number of rows
+     */
+    public synchronized int size() {
+        syncTags();
+        return rows().size();
+    }
+
+    /**
+     * Returns the number of transactions, regardless of the filter.
+     *
+     * @return the size of the index
+     */
+    public synchronized int totalSize() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a counter incremented on every change, to detect stale positions.
+     *
+     * @return the version of the index
+     */
+    public synchronized long version() {
+        syncTags();
+        return version;
+    }
+
+    /**
+     * Returns a window of the transactions shown, in display order.
+     *
+     * @param from  the position of the first transaction
+     * @param count the maximum number of transactions
+     * @return the transactions from position {@code from}, fewer than {@code count} at the end of the index
+     */
+    public synchronized List<TransactionBase> page(int from, int count) {
+        syncTags();
+        List<Entry> rows = rows();
+        int to = Math.min(rows.size(), from + count);
+        List<TransactionBase> page = new ArrayList<>(Math.max(0, to - from));
+        for (int i = Math.max(0, from); i < to; i++) page.add(rows.get(i).transaction);
+        return page;
+    }
+
+    /**
+     * Computes the tag names again and re-sorts, if the tags changed since they were last read.
+     */
+    private void syncTags() {
+        long current = tagController.version();
+        if (current == tagVersion) return;
+        tagVersion = current;
+        boolean renamed = false;
+        for (Entry entry : entries) {
+            String key = tagKey(entry.transaction);
+            if (key.equals(entry.tagKey)) continue;
+            entry.tagKey = key;
+            renamed = true;
+        }
+        if (!renamed) return;
+        entries.sort(this::compare);
+        if (shown != null) shown.sort(this::compare);
+        version++;
+    }
+
+    /**
+     * Returns the lowercased current name of the first tag of a transaction.
+     */
+    private String tagKey(TransactionBase transaction) {
+        List<Tag> tags = transaction.tags();
+        if (tags.isEmpty()) return UNTAGGED_NAME.toLowerCase(Locale.ROOT);
+        Tag tag = tags.get(0);
+        return tagController.getTagById(tag.id()).orElse(tag).name().toLowerCase(Locale.ROOT);
+    }
+
+    private List<Entry> rows() {
+        return shown != null ? shown : entries;
+    }
+
+    private void insert(List<Entry> list, Entry entry) {
+        int position = Collections.binarySearch(list, entry, this::compare);
+        list.add(-position - 1, entry);
+    }
+
+    private void applyOrder(List<SortKey> order) {
+        columns = new SortKey.Column[order.size()];
+        descending = new boolean[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            columns[i] = order.get(i).column();
+            descending[i] = !order.get(i).ascending();
+        }
+    }
+
+    private int compare(Entry a, Entry b) {
+        for (int i = 0; i < columns.length; i++) {
+            int c = switch (columns[i]) {
+                case DATE -> Long.compare(a.day, b.day);
+                case AMOUNT -> Long.compare(a.cents, b.cents);
+                case TAG -> a.tagKey.compareTo(b.tagKey);
+                case TYPE -> Integer.compare(a.type, b.type);
+            };
+            if (c != 0) return descending[i] ? -c : c;
+        }
+        return Long.compare(a.sequence, b.sequence);
+    }
+
+    /**
+     * A transaction with its precomputed sort keys.
+     */
+    private static final class Entry {
+        private final TransactionBase transaction;
+        private final long day;
+        private final long cents;
+        private final int type;
+        /** Changed only by {@link #syncTags()}, which re-sorts after. */
+        private String tagKey;
+        private final long sequence;
+
+        private Entry(TransactionBase transaction, String tagKey, long sequence) {
+            this.transaction = transaction;
+            this.day = transaction.date().toEpochDay();
+            this.cents = transaction.amount().cents();
+            this.type = transaction.type().ordinal();
+            this.tagKey = tagKey;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package it.unicam.cs.mpgc.jbudget126603.controller;
 
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TimeGranularity;
+import it.unicam.cs.mpgc.jbudget126603.model.TimeSeriesPoint;
 import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
 import java.util.List;
 import java.util.Map;
@@ -9,6 +13,14 @@ import java.util.Map;
  */
 public interface StatisticsController {
 
+    /**
+     * Computes all the statistics below in a single pass over the transactions.
+     *
+     * @param transactions the list of transactions to analyze
+     * @return the computed statistics
+     */
+    TransactionStatistics generateStatistics(List<TransactionBase> transactions);
+
     /**
      * Generates statistics for total income and expenses.
      *
@@ -26,10 +38,11 @@ public interface StatisticsController {
     Map<String, Double> generateStatsByTag(List<TransactionBase> transactions);
 
     /**
-     * Generates statistics about average, minimum, and maximum transaction amounts.
+     * Generates statistics about average, minimum, and maximum transaction amounts,
+     * along with the estimated median, 90th and 99th percentile.
      *
      * @param transactions the list of transactions to analyze
-     * @return a map with keys "average", "min", and "max"
+     * @return a map with keys "average", "min", "max", "median", "p90" and "p99"
      */
     Map<String, Double> generateAmountStatistics(List<TransactionBase> transactions);
 
@@ -40,4 +53,16 @@ public interface StatisticsController {
      * @return a map with tag names as keys and counts as values
      */
     Map<String, Long> generateTransactionCountByTag(List<TransactionBase> transactions);
+
+    /**
+     * Generates the time series of the net amounts of a tag and its subtags,
+     * with a moving average and the change from the previous period of each point.
+     *
+     * @param tag         the tag, or null for all transactions
+     * @param granularity daily, weekly or monthly periods
+     * @param range       the date range; unbounded ends default to the first and last transaction
+     * @param window      the number of periods of the moving average
+     * @return one point per period, oldest first
+     */
+    List<TimeSeriesPoint> generateTimeSeries(Tag tag, TimeGranularity granularity, DateRange range, int window);
 }
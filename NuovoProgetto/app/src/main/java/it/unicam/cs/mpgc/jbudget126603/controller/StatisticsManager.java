@@ -1,16 +1,53 @@
 package it.unicam.cs.mpgc.jbudget126603.controller;
 
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TimeGranularity;
+import it.unicam.cs.mpgc.jbudget126603.model.TimeSeriesPoint;
 import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
-import it.unicam.cs.mpgc.jbudget126603.model.Type;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of StatisticsController.
  * Provides statistical analysis on transactions, including totals, averages, and counts.
+ * Every statistic is read from a single fused pass computed by {@link TransactionStatistics};
+ * callers needing several of them should call {@link #generateStatistics(List)} once.
+ * Time series are read from a {@link TimeSeriesIndex} kept up to date by the application controller.
  */
 public class StatisticsManager implements StatisticsController {
 
+    private final TimeSeriesIndex timeSeriesIndex;
+    private final TagController tagController;
+
+    /**
+     * Creates a StatisticsManager with an empty time series index and no tag hierarchy.
+     */
+    public StatisticsManager() {
+        this(new TimeSeriesIndex(), null);
+    }
+
+    /**
+     * Creates a StatisticsManager reading time series from the given index.
+     *
+     * @param timeSeriesIndex the index of the transactions
+     * @param tagController   the tag hierarchy used to include subtags, or null to match tags exactly
+     */
+    public StatisticsManager(TimeSeriesIndex timeSeriesIndex, TagController tagController) {
+        this.timeSeriesIndex = timeSeriesIndex;
+        this.tagController = tagController;
+    }
+
+    /**
+     * Computes totals, per-tag sums and counts, and amount statistics in a single pass.
+     *
+     * @param transactions the list of transactions
+     * @return the computed statistics
+     */
+    @Override
+    public TransactionStatistics generateStatistics(List<TransactionBase> transactions) {
+        return TransactionStatistics.of(transactions);
+    }
+
     /**
      * Generates total income and total expense from a list of transactions.
      *
@@ -19,20 +56,7 @@ public class StatisticsManager implements StatisticsController {
      */
     @Override
     public Map<String, Double> generateIncomeExpenseStats(List<TransactionBase> transactions) {
-        double income = transactions.stream()
-                .filter(t -> t.type() == Type.INCOME)
-                .mapToDouble(t -> t.amount().toDouble())
-                .sum();
-
-        double expense = transactions.stream()
-                .filter(t -> t.type() == Type.EXPENSE)
-                .mapToDouble(t -> t.amount().toDouble())
-                .sum();
-
-        Map<String, Double> stats = new HashMap<>();
-        stats.put("Income", income);
-        stats.put("Expense", expense);
-        return stats;
+        return generateStatistics(transactions).incomeExpense();
     }
 
     /**
@@ -43,30 +67,18 @@ public class StatisticsManager implements StatisticsController {
      */
     @Override
     public Map<String, Double> generateStatsByTag(List<TransactionBase> transactions) {
-        return transactions.stream()
-                .flatMap(t -> t.tags().stream()
-                        .map(tag -> Map.entry(tag.name(), t.amount().toDouble())))
-                .collect(Collectors.groupingBy(Map.Entry::getKey,
-                        Collectors.summingDouble(Map.Entry::getValue)));
+        return generateStatistics(transactions).totalsByTag();
     }
 
     /**
-     * Generates basic amount statistics (average, min, max) from a list of transactions.
+     * Generates basic amount statistics (average, min, max, median, p90, p99) from a list of transactions.
      *
      * @param transactions the list of transactions
-     * @return a map containing "average", "min", and "max" values
+     * @return a map containing "average", "min", "max", "median", "p90" and "p99" values
      */
     @Override
     public Map<String, Double> generateAmountStatistics(List<TransactionBase> transactions) {
-        DoubleSummaryStatistics stats = transactions.stream()
-                .mapToDouble(t -> t.amount().toDouble())
-                .summaryStatistics();
-
-        Map<String, Double> result = new HashMap<>();
-        result.put("average", stats.getAverage());
-        result.put("min", stats.getMin());
-        result.put("max", stats.getMax());
-        return result;
+        return generateStatistics(transactions).amountStatistics();
     }
 
     /**
@@ -77,8 +89,26 @@ public class StatisticsManager implements StatisticsController {
      */
     @Override
     public Map<String, Long> generateTransactionCountByTag(List<TransactionBase> transactions) {
-        return transactions.stream()
-                .flatMap(t -> t.tags().stream().map(tag -> tag.name()))
-                .collect(Collectors.groupingBy(tag -> tag, Collectors.counting()));
+        return generateStatistics(transactions).countByTag();
+    }
+
+    /**
+     * Generates the time series of a tag and its subtags from the index,
+     * in time proportional to the number of periods.
+     *
+     * @param tag         the tag, or null for all transactions
+     * @param granularity daily, weekly or monthly periods
+     * @param range       the date range
+     * @param window      the number of periods of the moving average
+     * @return one point per period, oldest first
+     */
+    @Override
+    public List<TimeSeriesPoint> generateTimeSeries(Tag tag, TimeGranularity granularity, DateRange range, int window) {
+        List<String> tagIds = null;
+        if (tag != null) {
+            TagTree tree = tagController == null ? null : tagController.getTagTree();
+            tagIds = tree != null && tree.contains(tag.id()) ? tree.subtreeIds(tag.id()) : List.of(tag.id());
+        }
+        return timeSeriesIndex.series(tagIds, granularity, range, window);
     }
 }
@@ -73,4 +73,19 @@ public interface TagController {
      * @return true if the update was successful, false otherwise
      */
     boolean updateTagParent(String tagId, String newParentId);
+
+    /**
+     * Returns an index of the current tag hierarchy, supporting trees of any depth.
+     *
+     * @return the tag tree index
+     */
+    TagTree getTagTree();
+
+    /**
+     * Returns a number that changes every time the tags change,
+     * including renames. Useful to detect stale derived data.
+     *
+     * @return the current version
+     */
+    long version();
 }
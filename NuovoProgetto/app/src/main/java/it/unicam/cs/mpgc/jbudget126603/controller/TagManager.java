@@ -4,20 +4,49 @@ import it.unicam.cs.mpgc.jbudget126603.model.Tag;
 import it.unicam.cs.mpgc.jbudget126603.persistency.PersistenceManager;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Implementation of TagController with persistence support.
  * Manages the creation, retrieval, update, and deletion of Tag objects,
  * while keeping the tag list synchronized with the underlying persistence layer.
+ * Tags are indexed by ID and by parent ID, so lookups, root listing and
+ * child listing do not scan the whole tag list.
+ * <p>
+ * The manager is thread-safe. Reads never lock: they go through concurrent maps
+ * or immutable snapshots that are replaced (copy-on-write) by each structural change.
+ * Structural changes are serialized by a write lock, and saving to disk happens
+ * after that lock is released, so neither reads nor other writes wait for the disk.
  */
 public class TagManager implements TagController {
 
     private final PersistenceManager persistence;
-    private final List<Tag> tags;
+    /** Index of all tags by ID. */
+    private final Map<String, Tag> tagsById = new ConcurrentHashMap<>();
+    /** Immutable children lists of each non-root tag, keyed by parent ID. */
+    private final Map<String, List<Tag>> childrenByParent = new ConcurrentHashMap<>();
     private final AtomicLong counter = new AtomicLong(1);
 
+    /** Serializes structural changes. */
+    private final ReentrantLock writeLock = new ReentrantLock();
+    /** Serializes saves, so that an older snapshot never overwrites a newer one. */
+    private final Object saveLock = new Object();
+
+    /** Immutable snapshot of all tags, in insertion order. */
+    private volatile List<Tag> tags;
+    /** Immutable snapshot of the root tags. */
+    private volatile List<Tag> roots = List.of();
+    /** Incremented (under the write lock) by every change. */
+    private volatile long version;
+    /** Last version written to disk, guarded by saveLock. */
+    private long savedVersion;
+    /** Tree index of the hierarchy with the version it was built for. */
+    private volatile VersionedTree tagTree;
+
     /**
      * Creates a new TagManager with the given persistence manager.
      * Loads all existing tags from persistence and initializes the ID counter.
@@ -26,7 +55,8 @@ public class TagManager implements TagController {
      */
     public TagManager(PersistenceManager persistence) {
         this.persistence = persistence;
-        this.tags = new ArrayList<>(persistence.loadTags());
+        this.tags = List.copyOf(persistence.loadTags());
+        tags.forEach(this::index);
 
         tags.stream()
                 .map(Tag::id)
@@ -44,10 +74,90 @@ public class TagManager implements TagController {
         return String.valueOf(counter.incrementAndGet());
     }
 
+    /**
+     * Adds a tag to the ID and parent indexes. Must be called holding the write lock.
+     *
+     * @param tag the tag to index
+     */
+    private void index(Tag tag) {
+        tagsById.put(tag.id(), tag);
+        linkToParent(tag);
+    }
+
+    /**
+     * Adds a tag to the children of its parent. Must be called holding the write lock.
+     *
+     * @param tag the tag to link
+     */
+    private void linkToParent(Tag tag) {
+        if (tag.parentId() == null) {
+            roots = append(roots, tag);
+        } else {
+            childrenByParent.put(tag.parentId(),
+                    append(childrenByParent.getOrDefault(tag.parentId(), List.of()), tag));
+        }
+    }
+
+    /**
+     * Removes a tag from the children of its parent. Must be called holding the write lock.
+     *
+     * @param tag the tag to unlink
+     */
+    private void unlinkFromParent(Tag tag) {
+        if (tag.parentId() == null) {
+            roots = without(roots, tag);
+        } else {
+            List<Tag> siblings = without(childrenByParent.getOrDefault(tag.parentId(), List.of()), tag);
+            if (siblings.isEmpty()) childrenByParent.remove(tag.parentId());
+            else childrenByParent.put(tag.parentId(), siblings);
+        }
+    }
+
+    private static List<Tag> append(List<Tag> list, Tag tag) {
+        List<Tag> copy = new ArrayList<>(list.size() + 1);
+        copy.addAll(list);
+        copy.add(tag);
+        return List.copyOf(copy);
+    }
+
+    private static List<Tag> without(List<Tag> list, Tag tag) {
+        List<Tag> copy = new ArrayList<>(list);
+        copy.remove(tag);
+        return List.copyOf(copy);
+    }
+
+    /**
+     * Publishes a change. Must be called holding the write lock, after updating the snapshots.
+     */
+    private void changed() {
+        version++;
+    }
+
+    /**
+     * Writes the latest snapshot to disk, unless a newer or equal one was already written.
+     * Called after releasing the write lock.
+     */
+    private void save() {
+        synchronized (saveLock) {
+            long current = version;
+            List<Tag> snapshot = tags; // read after version: at least as recent
+            if (current <= savedVersion) return;
+            persistence.saveTags(snapshot);
+            savedVersion = current;
+        }
+    }
+
     @Override
     public void addTag(Tag tag) {
-        tags.add(tag);
-        persistence.saveTags(tags);
+        writeLock.lock();
+        try {
+            tags = append(tags, tag);
+            index(tag);
+            changed();
+        } finally {
+            writeLock.unlock();
+        }
+        save();
     }
 
     /**
@@ -65,52 +175,104 @@ public class TagManager implements TagController {
 
     @Override
     public boolean removeTag(String tagId) {
-        boolean removed = tags.removeIf(t -> t.id().equals(tagId));
-        if (removed) persistence.saveTags(tags);
-        return removed;
+        writeLock.lock();
+        try {
+            Tag tag = tagsById.remove(tagId);
+            if (tag == null) return false;
+            tags = without(tags, tag);
+            unlinkFromParent(tag);
+            changed();
+        } finally {
+            writeLock.unlock();
+        }
+        save();
+        return true;
     }
 
     @Override
     public Optional<Tag> getTagById(String tagId) {
-        return tags.stream().filter(t -> t.id().equals(tagId)).findFirst();
+        return Optional.ofNullable(tagsById.get(tagId));
     }
 
     @Override
     public List<Tag> getAllTags() {
-        return List.copyOf(tags);
+        return tags;
     }
 
     @Override
     public boolean updateTagName(String tagId, String newName) {
-        Optional<Tag> opt = getTagById(tagId);
-        if (opt.isPresent()) {
-            Tag tag = opt.get();
+        writeLock.lock();
+        try {
+            Tag tag = tagsById.get(tagId);
+            if (tag == null) return false;
             tag.setName(newName);
-            persistence.saveTags(tags);
-            return true;
+            changed();
+        } finally {
+            writeLock.unlock();
         }
-        return false;
+        save();
+        return true;
     }
 
     @Override
     public List<Tag> getRootTags() {
-        return tags.stream().filter(t -> t.parentId() == null).toList();
+        return roots;
     }
 
     @Override
     public List<Tag> getChildrenTags(String parentId) {
-        return tags.stream().filter(t -> parentId.equals(t.parentId())).toList();
+        if (parentId == null) return roots;
+        return childrenByParent.getOrDefault(parentId, List.of());
     }
 
     @Override
     public boolean updateTagParent(String tagId, String newParentId) {
-        Optional<Tag> opt = getTagById(tagId);
-        if (opt.isPresent()) {
-            Tag tag = opt.get();
+        writeLock.lock();
+        try {
+            Tag tag = tagsById.get(tagId);
+            if (tag == null) return false;
+            unlinkFromParent(tag);
             tag.setParentId(newParentId);
-            persistence.saveTags(tags);
-            return true;
+            linkToParent(tag);
+            changed();
+        } finally {
+            writeLock.unlock();
+        }
+        save();
+        return true;
+    }
+
+    @Override
+    public TagTree getTagTree() {
+        long current = version;
+        VersionedTree cached = tagTree;
+        if (cached != null && cached.version == current) return cached.tree;
+        TagTree tree = TagTree.build(tags);
+        tagTree = new VersionedTree(current, tree);
+        return tree;
+    }
+
+    /**
+     * Returns a number that changes every time the tags change,
+     * including renames. Useful to detect stale derived data.
+     *
+     * @return the current version
+     */
+    @Override
+    public long version() {
+        return version;
+    }
+
+    /**
+     * A tag tree together with the version of the tags it was built from.
+     */
+    private static final class VersionedTree {
+        private final long version;
+        private final TagTree tree;
+
+        private VersionedTree(long version, TagTree tree) {
+            this.version = version;
+            this.tree = tree;
         }
-        return false;
     }
 }
@@ -0,0 +1,212 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Pre-aggregated cube of (month x tag x type) to total cents and transaction count,
+ * maintained incrementally on every change.
+ * Tag and period queries add up whole months straight from the cube; the raw
+ * transactions are scanned only for the partial months at the edges of a range.
+ * Each transaction is attributed to its first tag, which is the one chosen when
+ * the transaction is entered; tag queries include the whole subtree of the tag.
+ * As a {@link CandidateSource}, the cube narrows date-bounded queries to the
+ * transactions of the months they span.
+ */
+public class TagPeriodCube implements TransactionListener, CandidateSource {
+
+    /** Key used for transactions without tags. */
+    public static final String UNTAGGED = "";
+
+    private static final int INCOME_CENTS = 0;
+    private static final int INCOME_COUNT = 1;
+    private static final int EXPENSE_CENTS = 2;
+    private static final int EXPENSE_COUNT = 3;
+
+    private final NavigableMap<YearMonth, MonthBucket> months = new TreeMap<>();
+
+    @Override
+    public synchronized void transactionAdded(TransactionBase transaction) {
+        MonthBucket bucket = months.computeIfAbsent(YearMonth.from(transaction.date()), m -> new MonthBucket());
+        bucket.rows.add(transaction);
+        bucket.add(primaryTag(transaction), transaction.type(), transaction.amount().cents(), 1);
+    }
+
+    @Override
+    public synchronized void transactionRemoved(TransactionBase transaction) {
+        YearMonth month = YearMonth.from(transaction.date());
+        MonthBucket bucket = months.get(month);
+        if (bucket == null || !bucket.rows.remove(transaction)) return;
+        bucket.add(primaryTag(transaction), transaction.type(), -transaction.amount().cents(), -1);
+        if (bucket.rows.isEmpty()) months.remove(month);
+    }
+
+    @Override
+    public synchronized long estimateCandidates(TransactionQuery query) {
+        DateRange range = query.range();
+        if (range == null || (range.start() == null && range.end() == null)) return -1;
+        long rows = 0;
+        for (MonthBucket bucket : span(range).values()) rows += bucket.rows.size();
+        return rows;
+    }
+
+    @Override
+    public synchronized List<TransactionBase> candidates(TransactionQuery query) {
+        DateRange range = query.range() == null ? new DateRange(null, null) : query.range();
+        List<TransactionBase> result = new ArrayList<>();
+        for (MonthBucket bucket : span(range).values()) result.addAll(bucket.rows);
+        return result;
+    }
+
+    /**
+     * Returns the balance of the transactions in a range whose tag lies in the subtree of the given tag.
+     *
+     * @param range the date range, possibly unbounded
+     * @param tagId the ID of the tag, or null for all transactions
+     * @param tree  the tag hierarchy used for subtree matching
+     * @return the balance (incomes minus expenses)
+     */
+    public Money balance(DateRange range, String tagId, TagTree tree) {
+        long[] totals = totals(range, tagId, tree);
+        return Money.ofCents(totals[INCOME_CENTS] - totals[EXPENSE_CENTS]);
+    }
+
+    /**
+     * Returns the number of transactions in a range whose tag lies in the subtree of the given tag.
+     *
+     * @param range the date range, possibly unbounded
+     * @param tagId the ID of the tag, or null for all transactions
+     * @param tree  the tag hierarchy used for subtree matching
+     * @return the number of matching transactions
+     */
+    public long count(DateRange range, String tagId, TagTree tree) {
+        long[] totals = totals(range, tagId, tree);
+        return totals[INCOME_COUNT] + totals[EXPENSE_COUNT];
+    }
+
+    /**
+     * Returns the signed totals in cents of a range, grouped by root tag.
+     * Transactions without tags, or with tags unknown to the tree, are grouped
+     * under their own tag ID or under {@link #UNTAGGED}.
+     *
+     * @param range      the date range, possibly unbounded
+     * @param ancestorId the ID of a tag restricting the result to its subtree, or null for all
+     * @param tree       the tag hierarchy
+     * @return a map from root tag ID to signed total in cents
+     */
+    public synchronized Map<String, Long> signedCentsByRoot(DateRange range, String ancestorId, TagTree tree) {
+        Map<String, Long> result = new HashMap<>();
+        Map<String, String> roots = new HashMap<>();
+        visit(range, subtreeFilter(ancestorId, tree), (tagId, type, cents, count) -> {
+            String root = roots.computeIfAbsent(tagId, id -> tree.rootOf(id).orElse(id));
+            result.merge(root, type == Type.INCOME ? cents : -cents, Long::sum);
+        });
+        return result;
+    }
+
+    private synchronized long[] totals(DateRange range, String tagId, TagTree tree) {
+        long[] totals = new long[4];
+        visit(range, subtreeFilter(tagId, tree), (tag, type, cents, count) -> {
+            if (type == Type.INCOME) {
+                totals[INCOME_CENTS] += cents;
+                totals[INCOME_COUNT] += count;
+            } else {
+                totals[EXPENSE_CENTS] += cents;
+                totals[EXPENSE_COUNT] += count;
+            }
+        });
+        return totals;
+    }
+
+    /**
+     * Feeds the visitor with the cube cells of every whole month in the range,
+     * and with the single matching transactions of the partial months at its edges.
+     */
+    private void visit(DateRange range, Predicate<String> tagFilter, CellVisitor visitor) {
+        LocalDate start = range.start();
+        LocalDate end = range.end();
+        NavigableMap<YearMonth, MonthBucket> span = span(range);
+
+        for (Map.Entry<YearMonth, MonthBucket> entry : span.entrySet()) {
+            YearMonth month = entry.getKey();
+            MonthBucket bucket = entry.getValue();
+            boolean partial = (start != null && month.equals(YearMonth.from(start)) && start.getDayOfMonth() != 1)
+                    || (end != null && month.equals(YearMonth.from(end)) && end.getDayOfMonth() != month.lengthOfMonth());
+            if (partial) {
+                for (TransactionBase t : bucket.rows) {
+                    String tag = primaryTag(t);
+                    if (range.contains(t.date()) && tagFilter.test(tag)) {
+                        visitor.visit(tag, t.type(), t.amount().cents(), 1);
+                    }
+                }
+            } else {
+                for (Map.Entry<String, long[]> cell : bucket.cells.entrySet()) {
+                    if (!tagFilter.test(cell.getKey())) continue;
+                    long[] c = cell.getValue();
+                    if (c[INCOME_COUNT] > 0) visitor.visit(cell.getKey(), Type.INCOME, c[INCOME_CENTS], c[INCOME_COUNT]);
+                    if (c[EXPENSE_COUNT] > 0) visitor.visit(cell.getKey(), Type.EXPENSE, c[EXPENSE_CENTS], c[EXPENSE_COUNT]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the months spanned by a range.
+     */
+    private NavigableMap<YearMonth, MonthBucket> span(DateRange range) {
+        NavigableMap<YearMonth, MonthBucket> span = months;
+        if (range.start() != null) span = span.tailMap(YearMonth.from(range.start()), true);
+        if (range.end() != null) span = span.headMap(YearMonth.from(range.end()), true);
+        return span;
+    }
+
+    private static Predicate<String> subtreeFilter(String ancestorId, TagTree tree) {
+        if (ancestorId == null) return tag -> true;
+        return tag -> !tag.equals(UNTAGGED) && tree.isInSubtree(tag, ancestorId);
+    }
+
+    private static String primaryTag(TransactionBase transaction) {
+        List<Tag> tags = transaction.tags();
+        return tags.isEmpty() ? UNTAGGED : tags.get(0).id();
+    }
+
+    /**
+     * Receives aggregated values: either a whole cube cell or a single transaction.
+     */
+    private interface CellVisitor {
+        void visit(String tagId, Type type, long cents, long count);
+    }
+
+    /**
+     * Aggregates and raw transactions of a single month.
+     */
+    private static final class MonthBucket {
+        /** Totals per tag ID: income cents, income count, expense cents, expense count. */
+        private final Map<String, long[]> cells = new HashMap<>();
+        private final List<TransactionBase> rows = new ArrayList<>();
+
+        private void add(String tagId, Type type, long cents, long count) {
+            long[] cell = cells.computeIfAbsent(tagId, k -> new long[4]);
+            if (type == Type.INCOME) {
+                cell[INCOME_CENTS] += cents;
+                cell[INCOME_COUNT] += count;
+            } else {
+                cell[EXPENSE_CENTS] += cents;
+                cell[EXPENSE_COUNT] += count;
+            }
+            if (cell[INCOME_COUNT] == 0 && cell[EXPENSE_COUNT] == 0) cells.remove(tagId);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Suggests a tag from the description of a transaction.
+ * The model counts, for every description token, how many transactions of
+ * each tag contain it; it is trained incrementally through the
+ * {@link TransactionListener} notifications, so it always reflects the ledger.
+ * A description scores each tag with the sum, over its tokens, of the fraction
+ * of the token occurrences falling on that tag: a token seen only with one tag
+ * is a strong vote, a token spread over many tags a weak one.
+ * Scoring touches the tag counts of the few tokens of the description only.
+ * Each transaction is learned under its first tag, the one chosen when it was entered;
+ * suggestions are restricted to tags that still exist.
+ */
+public class TagSuggester implements TransactionListener {
+
+    /** Minimum share of the total score for {@link #suggestTag(String)} to pick a tag. */
+    public static final double DEFAULT_CONFIDENCE = 0.6;
+
+    private final TagController tagController;
+    /** Number of transactions by token and tag ID. */
+    private final Map<String, Map<String, Integer>> counts = new HashMap<>();
+    /** Number of transactions by token, over all tags. */
+    private final Map<String, Integer> tokenTotals = new HashMap<>();
+
+    /**
+     * Creates a new TagSuggester.
+     *
+     * @param tagController the controller providing the existing tags
+     */
+    public TagSuggester(TagController tagController) {
+        this.tagController = tagController;
+    }
+
+    @Override
+    public synchronized void transactionAdded(TransactionBase transaction) {
+        update(transaction, 1);
+    }
+
+    @Override
+    public synchronized void transactionRemoved(TransactionBase transaction) {
+        update(transaction, -1);
+    }
+
+    /**
+     * Returns the tags best matching a description, best first.
+     *
+     * @param description the description
+     * @param limit       the maximum number of tags to return
+     * @return the suggested tags, empty if no token of the description is known
+     */
+    public List<Tag> suggest(String description, int limit) {
+        Map<String, Double> scores = scores(description);
+        List<Tag> result = new ArrayList<>();
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .forEach(e -> tagController.getTagById(e.getKey()).ifPresent(result::add));
+        return result;
+    }
+
+    /**
+     * Returns the tag of a description when one clearly prevails, that is when it
+     * takes at least {@link #DEFAULT_CONFIDENCE} of the total score.
+     *
+     * @param description the description
+     * @return the suggested tag, or empty if no tag prevails
+     */
+    public Optional<Tag> suggestTag(String description) {
+        Map<String, Double> scores = scores(description);
+        double total = 0;
+        String best = null;
+        for (Map.Entry<String, Double> e : scores.entrySet()) {
+            total += e.getValue();
+            if (best == null || e.getValue() > scores.get(best)) best = e.getKey();
+        }
+        if (best == null || scores.get(best) < DEFAULT_CONFIDENCE * total) return Optional.empty();
+        return tagController.getTagById(best);
+    }
+
+    /**
+     * Suggests a tag for each untagged transaction of a batch, in a single pass.
+     * Transactions that already have tags, or whose description matches no tag
+     * clearly, are left out of the result.
+     *
+     * @param transactions the transactions to categorize
+     * @return the suggested tag by transaction ID
+     */
+    public synchronized Map<String, Tag> categorize(List<? extends TransactionBase> transactions) {
+        Map<String, Tag> result = new LinkedHashMap<>();
+        for (TransactionBase t : transactions) {
+            if (!t.tags().isEmpty()) continue;
+            suggestTag(t.description()).ifPresent(tag -> result.put(t.id(), tag));
+        }
+        return result;
+    }
+
+    private synchronized Map<String, Double> scores(String description) {
+        Map<String, Double> scores = new HashMap<>();
+        for (String token : TextNormalizer.tokens(description)) {
+            Map<String, Integer> byTag = counts.get(token);
+            if (byTag == null) continue;
+            double total = tokenTotals.get(token);
+            byTag.forEach((tagId, count) -> scores.merge(tagId, count / total, Double::sum));
+        }
+        return scores;
+    }
+
+    private void update(TransactionBase transaction, int delta) {
+        List<Tag> tags = transaction.tags();
+        if (tags.isEmpty()) return;
+        String tagId = tags.get(0).id();
+        Set<String> tokens = TextNormalizer.tokens(transaction.description());
+        for (String token : tokens) {
+            Map<String, Integer> byTag = counts.computeIfAbsent(token, k -> new HashMap<>());
+            if (byTag.merge(tagId, delta, Integer::sum) <= 0) byTag.remove(tagId);
+            if (byTag.isEmpty()) counts.remove(token);
+            if (tokenTotals.merge(token, delta, Integer::sum) <= 0) tokenTotals.remove(token);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable snapshot of the tag hierarchy, indexed with Euler-tour intervals.
+ * Tags are numbered in depth-first pre-order and every tag stores the last
+ * number used inside its subtree, so the subtree of a tag is a contiguous
+ * interval of numbers and checking whether a tag lies under an ancestor takes
+ * two integer comparisons, whatever the depth of the tree.
+ * Tags whose parent does not exist are treated as roots, and so is the first
+ * tag found on a parent cycle.
+ */
+public final class TagTree {
+
+    /** Pre-order position of each tag ID. */
+    private final Map<String, Integer> positions;
+
+    /** Tag IDs in pre-order. */
+    private final String[] order;
+
+    /** Last pre-order position inside the subtree of the tag at each position. */
+    private final int[] last;
+
+    /** Pre-order position of the root of the tag at each position. */
+    private final int[] root;
+
+    /** Depth of the tag at each position, roots having depth 0. */
+    private final int[] depth;
+
+    private TagTree(Map<String, Integer> positions, String[] order, int[] last, int[] root, int[] depth) {
+        this.positions = positions;
+        this.order = order;
+        this.last = last;
+        this.root = root;
+        this.depth = depth;
+    }
+
+    /**
+     * Builds the tree index for the given tags.
+     * Sibling order follows the order of the given collection.
+     *
+     * @param tags the tags to index
+     * @return the tree index
+     */
+    public static TagTree build(Collection<Tag> tags) {
+        Map<String, Tag> byId = new LinkedHashMap<>();
+        for (Tag tag : tags) byId.putIfAbsent(tag.id(), tag);
+
+        Map<String, List<String>> children = new HashMap<>();
+        List<String> roots = new ArrayList<>();
+        for (Tag tag : byId.values()) {
+            String parentId = tag.parentId();
+            if (parentId == null || !byId.containsKey(parentId)) {
+                roots.add(tag.id());
+            } else {
+                children.computeIfAbsent(parentId, k -> new ArrayList<>()).add(tag.id());
+            }
+        }
+
+        int n = byId.size();
+        Map<String, Integer> positions = new HashMap<>(n * 2);
+        String[] order = new String[n];
+        int[] last = new int[n];
+        int[] root = new int[n];
+        int[] depth = new int[n];
+        int next = 0;
+
+        // Roots first, then any tag left unvisited because it sits on a parent cycle
+        List<String> starts = new ArrayList<>(roots);
+        starts.addAll(byId.keySet());
+        Deque<int[]> stack = new ArrayDeque<>(); // {position, index of next child}
+        for (String start : starts) {
+            if (positions.containsKey(start)) continue;
+            int rootPos = next;
+            positions.put(start, next);
+            order[next] = start;
+            root[next] = rootPos;
+            depth[next] = 0;
+            stack.push(new int[]{next++, 0});
+
+            while (!stack.isEmpty()) {
+                int[] frame = stack.peek();
+                List<String> kids = children.getOrDefault(order[frame[0]], List.of());
+                String child = null;
+                while (frame[1] < kids.size() && child == null) {
+                    String candidate = kids.get(frame[1]++);
+                    if (!positions.containsKey(candidate)) child = candidate;
+                }
+                if (child == null) {
+                    last[frame[0]] = next - 1;
+                    stack.pop();
+                } else {
+                    positions.put(child, next);
+                    order[next] = child;
+                    root[next] = rootPos;
+                    depth[next] = depth[frame[0]] + 1;
+                    stack.push(new int[]{next++, 0});
+                }
+            }
+        }
+        return new TagTree(positions, order, last, root, depth);
+    }
+
+    /**
+     * Checks whether a tag is the given ancestor or lies anywhere in its subtree.
+     * Tags unknown to this index only match themselves.
+     *
+     * @param tagId      the ID of the tag to test
+     * @param ancestorId the ID of the candidate ancestor
+     * @return true if the tag is in the subtree of the ancestor, false otherwise
+     */
+    public boolean isInSubtree(String tagId, String ancestorId) {
+        Integer t = positions.get(tagId);
+        Integer a = positions.get(ancestorId);
+        if (t == null || a == null) return tagId.equals(ancestorId);
+        return a <= t && t <= last[a];
+    }
+
+    /**
+     * Returns the IDs of a tag and of all its descendants, in pre-order.
+     *
+     * @param tagId the ID of the subtree root
+     * @return the IDs in the subtree, or an empty list if the tag is unknown
+     */
+    public List<String> subtreeIds(String tagId) {
+        Integer a = positions.get(tagId);
+        if (a == null) return List.of();
+        return List.of(Arrays.copyOfRange(order, a, last[a] + 1));
+    }
+
+    /**
+     * Returns the ID of the root ancestor of a tag (the tag itself if it is a root).
+     *
+     * @param tagId the ID of the tag
+     * @return the root ID, or empty if the tag is unknown
+     */
+    public Optional<String> rootOf(String tagId) {
+        Integer t = positions.get(tagId);
+        return t == null ? Optional.empty() : Optional.of(order[root[t]]);
+    }
+
+    /**
+     * Returns the depth of a tag, root tags having depth 0.
+     *
+     * @param tagId the ID of the tag
+     * @return the depth, or -1 if the tag is unknown
+     */
+    public int depth(String tagId) {
+        Integer t = positions.get(tagId);
+        return t == null ? -1 : depth[t];
+    }
+
+    /**
+     * Checks whether a tag is part of this index.
+     *
+     * @param tagId the ID of the tag
+     * @return true if the tag is indexed, false otherwise
+     */
+    public boolean contains(String tagId) {
+        return positions.containsKey(tagId);
+    }
+
+    /**
+     * Returns the number of indexed tags.
+     *
+     * @return the number of tags
+     */
+    public int size() {
+        return order.length;
+    }
+}
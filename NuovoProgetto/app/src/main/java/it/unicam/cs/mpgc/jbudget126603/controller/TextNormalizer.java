@@ -0,0 +1,99 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization and tokenization of free text for searching.
+ * Text is accent-folded (accented letters lose their diacritics), lowercased and split into
+ * tokens of letters and digits. A search term matches a token when it occurs
+ * anywhere in it, if at least {@link #MIN_INFIX_LENGTH} characters long,
+ * or when the token starts with it, if shorter.
+ */
+public final class TextNormalizer {
+
+    /** Minimum term length for matching inside words rather than at their start. */
+    public static final int MIN_INFIX_LENGTH = 3;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Accent-folds and lowercases a text.
+     *
+     * @param text the text, possibly null
+     * @return the normalized text, empty for null
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits a text into distinct normalized tokens, in order of first occurrence.
+     *
+     * @param text the text, possibly null
+     * @return the tokens
+     */
+    public static Set<String> tokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the trigrams (substrings of length 3) of a token.
+     *
+     * @param token a normalized token
+     * @return the distinct trigrams, empty if the token is shorter than 3 characters
+     */
+    public static Set<String> trigrams(String token) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= token.length(); i++) grams.add(token.substring(i, i + 3));
+        return grams;
+    }
+
+    /**
+     * Tells whether a search term matches a token.
+     *
+     * @param term  a normalized search term
+     * @param token a normalized token
+     * @return true if the token contains the term (or starts with it, for short terms)
+     */
+    public static boolean termMatches(String term, String token) {
+        return term.length() >= MIN_INFIX_LENGTH ? token.contains(term) : token.startsWith(term);
+    }
+
+    /**
+     * Tells whether every term of a query matches some token of a text.
+     *
+     * @param query the search query
+     * @param text  the text, possibly null
+     * @return true if the text matches the query
+     */
+    public static boolean matches(String query, String text) {
+        List<String> tokens = new ArrayList<>(tokens(text));
+        for (String term : tokens(query)) {
+            boolean found = false;
+            for (String token : tokens) {
+                if (termMatches(term, token)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TimeGranularity;
+import it.unicam.cs.mpgc.jbudget126603.model.TimeSeriesPoint;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Net amounts per tag and per day, week and month, kept up to date in O(1)
+ * for every granularity on each change (one hash update per tag of the transaction).
+ * A series over P periods is then produced in O(P) per tag, independently of
+ * the number of transactions: the moving average slides a running sum over
+ * the window, adding the entering period and subtracting the leaving one.
+ * A transaction with several tags is counted under each of them.
+ */
+public class TimeSeriesIndex implements TransactionListener {
+
+    /** Net cents and number of transactions of each period, by granularity. */
+    private final Map<TimeGranularity, Map<LocalDate, long[]>> all = buckets();
+    private final Map<String, Map<TimeGranularity, Map<LocalDate, long[]>>> byTag = new HashMap<>();
+    /** Number of transactions of each day, used to bound unbounded ranges. */
+    private final TreeMap<LocalDate, Integer> days = new TreeMap<>();
+
+    @Override
+    public synchronized void transactionAdded(TransactionBase transaction) {
+        update(transaction, 1);
+    }
+
+    @Override
+    public synchronized void transactionRemoved(TransactionBase transaction) {
+        update(transaction, -1);
+    }
+
+    /**
+     * Returns the series of net amounts of a set of tags.
+     * Each point carries the net amount of its period, the average of the last
+     * {@code window} periods (earlier periods before the range included, missing ones as zero)
+     * and the change from the previous period.
+     *
+     * @param tagIds      the IDs of the tags to sum, or null for all transactions
+     * @param granularity the length of the periods
+     * @param range       the date range; unbounded ends default to the first and last transaction
+     * @param window      the number of periods of the moving average
+     * @return one point per period, oldest first; empty if there are no transactions to bound the range
+     * @throws IllegalArgumentException if the window is less than 1
+     */
+    public synchronized List<TimeSeriesPoint> series(Collection<String> tagIds, TimeGranularity granularity,
+                                                     DateRange range, int window) {
+        if (window < 1) throw new IllegalArgumentException("Window must be at least 1");
+        LocalDate from = range.start() != null ? range.start() : days.isEmpty() ? null : days.firstKey();
+        LocalDate to = range.end() != null ? range.end() : days.isEmpty() ? null : days.lastKey();
+        List<TimeSeriesPoint> points = new ArrayList<>();
+        if (from == null || to == null || from.isAfter(to)) return points;
+
+        List<Map<LocalDate, long[]>> sources = new ArrayList<>();
+        if (tagIds == null) {
+            sources.add(all.get(granularity));
+        } else {
+            for (String tagId : tagIds) {
+                Map<TimeGranularity, Map<LocalDate, long[]>> tagBuckets = byTag.get(tagId);
+                if (tagBuckets != null) sources.add(tagBuckets.get(granularity));
+            }
+        }
+
+        // Ring buffer of the last window values, pre-filled with the periods before the range.
+        long[] ring = new long[window];
+        long windowSum = 0;
+        LocalDate first = granularity.periodStart(from);
+        LocalDate period = first;
+        for (int i = window - 1; i > 0; i--) {
+            period = granularity.previous(period);
+            ring[i] = cents(sources, period);
+            windowSum += ring[i];
+        }
+        long previous = window > 1 ? ring[window - 1] : cents(sources, granularity.previous(first));
+
+        int slot = 0;
+        for (period = first; !period.isAfter(to); period = granularity.next(period)) {
+            long value = cents(sources, period);
+            windowSum += value - ring[slot];
+            ring[slot] = value;
+            slot = (slot + 1) % window;
+            points.add(new TimeSeriesPoint(period, Money.ofCents(value),
+                    average(windowSum, window), Money.ofCents(value - previous)));
+            previous = value;
+        }
+        return points;
+    }
+
+    private void update(TransactionBase transaction, int sign) {
+        LocalDate date = transaction.date();
+        long cents = sign * transaction.signedCents();
+        add(all, date, cents, sign);
+        Set<String> ids = new LinkedHashSet<>();
+        for (Tag tag : transaction.tags()) ids.add(tag.id());
+        for (String id : ids) {
+            Map<TimeGranularity, Map<LocalDate, long[]>> tagBuckets = byTag.computeIfAbsent(id, k -> buckets());
+            add(tagBuckets, date, cents, sign);
+            if (tagBuckets.get(TimeGranularity.DAILY).isEmpty()) byTag.remove(id);
+        }
+        days.merge(date, sign, Integer::sum);
+        if (days.get(date) == 0) days.remove(date);
+    }
+
+    private static void add(Map<TimeGranularity, Map<LocalDate, long[]>> buckets, LocalDate date, long cents, int sign) {
+        for (TimeGranularity granularity : TimeGranularity.values()) {
+            Map<LocalDate, long[]> periods = buckets.get(granularity);
+            LocalDate start = granularity.periodStart(date);
+            long[] bucket = periods.computeIfAbsent(start, k -> new long[2]);
+            bucket[0] += cents;
+            bucket[1] += sign;
+            if (bucket[1] == 0) periods.remove(start);
+        }
+    }
+
+    private static long cents(List<Map<LocalDate, long[]>> sources, LocalDate period) {
+        long sum = 0;
+        for (Map<LocalDate, long[]> periods : sources) {
+            long[] bucket = periods.get(period);
+            if (bucket != null) sum += bucket[0];
+        }
+        return sum;
+    }
+
+    private static Money average(long sumCents, int window) {
+        return new Money(BigDecimal.valueOf(sumCents, 2)
+                .divide(BigDecimal.valueOf(window), 2, RoundingMode.HALF_EVEN));
+    }
+
+    private static Map<TimeGranularity, Map<LocalDate, long[]>> buckets() {
+        Map<TimeGranularity, Map<LocalDate, long[]>> buckets = new EnumMap<>(TimeGranularity.class);
+        for (TimeGranularity granularity : TimeGranularity.values()) buckets.put(granularity, new HashMap<>());
+        return buckets;
+    }
+}
@@ -0,0 +1,38 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+
+/**
+ * Listener notified by AppController every time the in-memory ledger changes.
+ * Used to keep indexes and aggregates up to date incrementally,
+ * instead of recomputing them from the whole transaction list.
+ * Notifications are delivered while AppController holds its lock.
+ */
+public interface TransactionListener {
+
+    /**
+     * Called after a transaction has been added.
+     *
+     * @param transaction the added transaction
+     */
+    void transactionAdded(TransactionBase transaction);
+
+    /**
+     * Called after a transaction has been removed.
+     *
+     * @param transaction the removed transaction
+     */
+    void transactionRemoved(TransactionBase transaction);
+
+    /**
+     * Called after a transaction has been replaced by an updated version.
+     * By default it is handled as a removal followed by an addition.
+     *
+     * @param oldTransaction the replaced transaction
+     * @param newTransaction the new transaction
+     */
+    default void transactionUpdated(TransactionBase oldTransaction, TransactionBase newTransaction) {
+        transactionRemoved(oldTransaction);
+        transactionAdded(newTransaction);
+    }
+}
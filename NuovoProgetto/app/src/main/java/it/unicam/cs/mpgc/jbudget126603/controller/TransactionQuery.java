@@ -0,0 +1,256 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.RecurrenceType;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+
+/**
+ * Immutable description of a filter over transactions: the conjunction of
+ * optional conditions on date, amount, type, tag subtree, recurrence and description.
+ * Queries are built with {@link #builder()} and turned into an executable
+ * filter with {@link #compile(TagTree)}.
+ */
+public final class TransactionQuery {
+
+    private final DateRange range;
+    private final Long minCents;
+    private final Long maxCents;
+    private final Type type;
+    private final String tagId;
+    private final Boolean recurring;
+    private final RecurrenceType recurrenceType;
+    private final String text;
+
+    private TransactionQuery(Builder builder) {
+        this.range = builder.range;
+        this.minCents = builder.minCents;
+        this.maxCents = builder.maxCents;
+        this.type = builder.type;
+        this.tagId = builder.tagId;
+        this.recurring = builder.recurring;
+        this.recurrenceType = builder.recurrenceType;
+        this.text = builder.text;
+    }
+
+    /**
+     * Creates a builder for a query matching every transaction.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Compiles the query into a predicate chain, using the given hierarchy for tag subtrees.
+     *
+     * @param tree the tag hierarchy
+     * @return the compiled query
+     */
+    public CompiledQuery compile(TagTree tree) {
+        return new CompiledQuery(this, tree);
+    }
+
+    /**
+     * Returns the date range, or null if dates are not filtered.
+     *
+     * @return the date range
+     */
+    public DateRange range() {
+        return range;
+    }
+
+    /**
+     * Returns the minimum amount in cents (inclusive), or null if unbounded.
+     *
+     * @return the minimum amount
+     */
+    public Long minCents() {
+        return minCents;
+    }
+
+    /**
+     * Returns the maximum amount in cents (inclusive), or null if unbounded.
+     *
+     * @return the maximum amount
+     */
+    public Long maxCents() {
+        return maxCents;
+    }
+
+    /**
+     * Returns the type of the transactions, or null for both types.
+     *
+     * @return the type
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * Returns the ID of the tag whose subtree must contain a tag of the transactions, or null.
+     *
+     * @return the tag ID
+     */
+    public String tagId() {
+        return tagId;
+    }
+
+    /**
+     * Returns whether the transactions must be recurrent (true) or not (false), or null for both.
+     *
+     * @return the recurrence flag
+     */
+    public Boolean recurring() {
+        return recurring;
+    }
+
+    /**
+     * Returns the recurrence of the transactions, or null for any.
+     *
+     * @return the recurrence type
+     */
+    public RecurrenceType recurrenceType() {
+        return recurrenceType;
+    }
+
+    /**
+     * Returns the words the description must match, or null.
+     *
+     * @return the text
+     */
+    public String text() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionQuery{" +
+                "range=" + range +
+                ", minCents=" + minCents +
+                ", maxCents=" + maxCents +
+                ", type=" + type +
+                ", tagId=" + tagId +
+                ", recurring=" + recurring +
+                ", recurrenceType=" + recurrenceType +
+                ", text=" + text +
+                '}';
+    }
+
+    /**
+     * Builder of {@link TransactionQuery}. Every condition is optional;
+     * setting a condition to null removes it.
+     */
+    public static final class Builder {
+        private DateRange range;
+        private Long minCents;
+        private Long maxCents;
+        private Type type;
+        private String tagId;
+        private Boolean recurring;
+        private RecurrenceType recurrenceType;
+        private String text;
+
+        private Builder() {
+        }
+
+        /**
+         * Restricts the query to a date range.
+         *
+         * @param range the date range, possibly unbounded on either side
+         * @return this builder
+         */
+        public Builder range(DateRange range) {
+            this.range = range;
+            return this;
+        }
+
+        /**
+         * Restricts the query to amounts of at least the given value.
+         *
+         * @param min the minimum amount, inclusive
+         * @return this builder
+         */
+        public Builder minAmount(Money min) {
+            this.minCents = min == null ? null : min.cents();
+            return this;
+        }
+
+        /**
+         * Restricts the query to amounts of at most the given value.
+         *
+         * @param max the maximum amount, inclusive
+         * @return this builder
+         */
+        public Builder maxAmount(Money max) {
+            this.maxCents = max == null ? null : max.cents();
+            return this;
+        }
+
+        /**
+         * Restricts the query to incomes or expenses.
+         *
+         * @param type the type
+         * @return this builder
+         */
+        public Builder type(Type type) {
+            this.type = type;
+            return this;
+        }
+
+        /**
+         * Restricts the query to transactions with a tag in the subtree of the given tag.
+         *
+         * @param tagId the ID of the tag
+         * @return this builder
+         */
+        public Builder tag(String tagId) {
+            this.tagId = tagId;
+            return this;
+        }
+
+        /**
+         * Restricts the query to recurrent or to non-recurrent transactions.
+         *
+         * @param recurring true for recurrent transactions, false for the others
+         * @return this builder
+         */
+        public Builder recurring(Boolean recurring) {
+            this.recurring = recurring;
+            return this;
+        }
+
+        /**
+         * Restricts the query to transactions with the given recurrence.
+         *
+         * @param recurrenceType the recurrence
+         * @return this builder
+         */
+        public Builder recurrence(RecurrenceType recurrenceType) {
+            this.recurrenceType = recurrenceType;
+            return this;
+        }
+
+        /**
+         * Restricts the query to transactions whose description matches every word of the given text,
+         * ignoring case and accents (see {@link TextNormalizer}).
+         *
+         * @param text the text to look for; blank text is ignored
+         * @return this builder
+         */
+        public Builder text(String text) {
+            this.text = text == null || text.isBlank() ? null : text.trim();
+            return this;
+        }
+
+        /**
+         * Builds the query.
+         *
+         * @return the query
+         */
+        public TransactionQuery build() {
+            return new TransactionQuery(this);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * Statistics computed in a single pass over a list of transactions.
+ * Income and expense totals, per-tag sums and counts, min/average/max amounts
+ * and a quantile sketch of the amounts are accumulated together in primitive cents,
+ * without a Money or double per row.
+ * Partial results computed on separate chunks can be merged, so the pass
+ * can run on a parallel stream; merging exact integers keeps the result
+ * independent of how the input was split.
+ */
+public final class TransactionStatistics {
+
+    /** Minimum list size for which {@link #of(List)} runs in parallel. */
+    public static final int PARALLEL_THRESHOLD = 100_000;
+
+    private long incomeCents;
+    private long expenseCents;
+    private long count;
+    private long sumCents;
+    private long minCents = Long.MAX_VALUE;
+    private long maxCents = Long.MIN_VALUE;
+    /** Sum of cents and number of transactions by tag name. */
+    private final Map<String, long[]> byTag = new HashMap<>();
+    /** Distribution of the non-negative amounts. */
+    private final QuantileSketch amounts = new QuantileSketch();
+
+    /**
+     * Creates empty statistics, to be filled with {@link #accept(TransactionBase)}.
+     */
+    public TransactionStatistics() {
+    }
+
+    /**
+     * Computes the statistics of a list of transactions,
+     * in parallel if the list has at least {@link #PARALLEL_THRESHOLD} elements.
+     *
+     * @param transactions the transactions to analyze
+     * @return the computed statistics
+     */
+    public static TransactionStatistics of(List<TransactionBase> transactions) {
+        return transactions.size() >= PARALLEL_THRESHOLD
+                ? transactions.parallelStream().collect(collector())
+                : transactions.stream().collect(collector());
+    }
+
+    /**
+     * Returns a collector computing TransactionStatistics, usable on parallel streams.
+     *
+     * @return the collector
+     */
+    public static Collector<TransactionBase, TransactionStatistics, TransactionStatistics> collector() {
+        return Collector.of(TransactionStatistics::new, TransactionStatistics::accept, TransactionStatistics::combine);
+    }
+
+    /**
+     * Adds a transaction to the statistics.
+     *
+     * @param transaction the transaction to add
+     */
+    public void accept(TransactionBase transaction) {
+        long cents = transaction.amount().cents();
+        if (transaction.type() == Type.INCOME) incomeCents += cents;
+        else if (transaction.type() == Type.EXPENSE) expenseCents += cents;
+        count++;
+        sumCents += cents;
+        minCents = Math.min(minCents, cents);
+        maxCents = Math.max(maxCents, cents);
+        if (cents >= 0) amounts.add(cents);
+        for (Tag tag : transaction.tags()) {
+            long[] totals = byTag.computeIfAbsent(tag.name(), k -> new long[2]);
+            totals[0] += cents;
+            totals[1]++;
+        }
+    }
+
+    /**
+     * Merges other statistics into these.
+     *
+     * @param other the statistics to merge
+     * @return these statistics, after the merge
+     */
+    public TransactionStatistics combine(TransactionStatistics other) {
+        incomeCents += other.incomeCents;
+        expenseCents += other.expenseCents;
+        count += other.count;
+        sumCents += other.sumCents;
+        minCents = Math.min(minCents, other.minCents);
+        maxCents = Math.max(maxCents, other.maxCents);
+        amounts.merge(other.amounts);
+        other.byTag.forEach((name, totals) -> {
+            long[] mine = byTag.computeIfAbsent(name, k -> new long[2]);
+            mine[0] += totals[0];
+            mine[1] += totals[1];
+        });
+        return this;
+    }
+
+    /**
+     * Returns the number of transactions.
+     *
+     * @return the count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns total income and total expense.
+     *
+     * @return a map with keys "Income" and "Expense"
+     */
+    public Map<String, Double> incomeExpense() {
+        Map<String, Double> stats = new HashMap<>();
+        stats.put("Income", toDouble(incomeCents));
+        stats.put("Expense", toDouble(expenseCents));
+        return stats;
+    }
+
+    /**
+     * Returns the total amount of the transactions of each tag.
+     *
+     * @return a map from tag name to total amount
+     */
+    public Map<String, Double> totalsByTag() {
+        Map<String, Double> result = new HashMap<>();
+        byTag.forEach((name, totals) -> result.put(name, toDouble(totals[0])));
+        return result;
+    }
+
+    /**
+     * Returns the number of transactions of each tag.
+     *
+     * @return a map from tag name to count
+     */
+    public Map<String, Long> countByTag() {
+        Map<String, Long> result = new HashMap<>();
+        byTag.forEach((name, totals) -> result.put(name, totals[1]));
+        return result;
+    }
+
+    /**
+     * Returns average, minimum and maximum amount, and the estimated
+     * median, 90th and 99th percentile (within 1%, NaN for an empty input).
+     * Like DoubleSummaryStatistics, an empty input has average 0,
+     * minimum positive infinity and maximum negative infinity.
+     *
+     * @return a map with keys "average", "min", "max", "median", "p90" and "p99"
+     */
+    public Map<String, Double> amountStatistics() {
+        Map<String, Double> result = new HashMap<>();
+        result.put("average", count == 0 ? 0.0 : sumCents / 100.0 / count);
+        result.put("min", count == 0 ? Double.POSITIVE_INFINITY : toDouble(minCents));
+        result.put("max", count == 0 ? Double.NEGATIVE_INFINITY : toDouble(maxCents));
+        result.put("median", amounts.quantile(0.5) / 100.0);
+        result.put("p90", amounts.quantile(0.9) / 100.0);
+        result.put("p99", amounts.quantile(0.99) / 100.0);
+        return result;
+    }
+
+    private static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+}
@@ -30,6 +30,24 @@ public final class DateRange {
         this.end = end;
     }
 
+    /**
+     * Returns the start date of the range.
+     *
+     * @return the start date (inclusive), or null if unbounded
+     */
+    public LocalDate start() {
+        return start;
+    }
+
+    /**
+     * Returns the end date of the range.
+     *
+     * @return the end date (inclusive), or null if unbounded
+     */
+    public LocalDate end() {
+        return end;
+    }
+
     /**
      * Checks if a given date falls within this range.
      *
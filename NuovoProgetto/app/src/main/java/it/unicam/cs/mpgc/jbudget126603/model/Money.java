@@ -43,6 +43,26 @@ public class Money {
         return amount;
     }
 
+    /**
+     * Creates a new Money from an amount expressed in cents.
+     *
+     * @param cents the amount in cents
+     * @return the corresponding Money
+     */
+    public static Money ofCents(long cents) {
+        return new Money(BigDecimal.valueOf(cents, 2));
+    }
+
+    /**
+     * Returns the monetary value expressed in cents.
+     *
+     * @return monetary value in cents
+     * @throws ArithmeticException if the value does not fit in a long
+     */
+    public long cents() {
+        return amount.unscaledValue().longValueExact();
+    }
+
     /**
      * Returns the monetary value as a primitive double.
      *
@@ -11,8 +11,9 @@ import java.util.Objects;
  */
 public class Tag {
     private final String id;
-    private String name;
-    private String parentId;
+    // volatile: tags are shared between threads and renamed or moved in place
+    private volatile String name;
+    private volatile String parentId;
 
     /**
      * Creates a new Tag.
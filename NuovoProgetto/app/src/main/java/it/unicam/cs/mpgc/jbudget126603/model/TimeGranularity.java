@@ -0,0 +1,62 @@
+package it.unicam.cs.mpgc.jbudget126603.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Enumeration of the period lengths used to group transactions in time series.
+ */
+public enum TimeGranularity {
+
+    /** One period per day. */
+    DAILY,
+
+    /** One period per week, starting on Monday. */
+    WEEKLY,
+
+    /** One period per calendar month. */
+    MONTHLY;
+
+    /**
+     * Returns the first day of the period containing the given date.
+     *
+     * @param date the date
+     * @return the start of its period
+     */
+    public LocalDate periodStart(LocalDate date) {
+        return switch (this) {
+            case DAILY -> date;
+            case WEEKLY -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHLY -> date.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * Returns the start of the period following the one starting at the given date.
+     *
+     * @param periodStart the start of a period
+     * @return the start of the next period
+     */
+    public LocalDate next(LocalDate periodStart) {
+        return switch (this) {
+            case DAILY -> periodStart.plusDays(1);
+            case WEEKLY -> periodStart.plusWeeks(1);
+            case MONTHLY -> periodStart.plusMonths(1);
+        };
+    }
+
+    /**
+     * Returns the start of the period preceding the one starting at the given date.
+     *
+     * @param periodStart the start of a period
+     * @return the start of the previous period
+     */
+    public LocalDate previous(LocalDate periodStart) {
+        return switch (this) {
+            case DAILY -> periodStart.minusDays(1);
+            case WEEKLY -> periodStart.minusWeeks(1);
+            case MONTHLY -> periodStart.minusMonths(1);
+        };
+    }
+}
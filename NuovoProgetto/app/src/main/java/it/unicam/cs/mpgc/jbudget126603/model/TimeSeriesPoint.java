@@ -0,0 +1,86 @@
+package it.unicam.cs.mpgc.jbudget126603.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Represents an immutable point of a time series of balances:
+ * the net amount of a period, its moving average over the preceding periods,
+ * and the change with respect to the previous period.
+ */
+public final class TimeSeriesPoint {
+    /** First day of the period. */
+    private final LocalDate periodStart;
+
+    /** Net amount (incomes minus expenses) of the period. */
+    private final Money value;
+
+    /** Average of the values of the last periods, this one included. */
+    private final Money movingAverage;
+
+    /** Value of this period minus the value of the previous one. */
+    private final Money change;
+
+    /**
+     * Creates a new TimeSeriesPoint.
+     *
+     * @param periodStart   first day of the period (cannot be null)
+     * @param value         net amount of the period (cannot be null)
+     * @param movingAverage moving average ending with this period (cannot be null)
+     * @param change        change from the previous period (cannot be null)
+     * @throws NullPointerException if any argument is null
+     */
+    public TimeSeriesPoint(LocalDate periodStart, Money value, Money movingAverage, Money change) {
+        this.periodStart = Objects.requireNonNull(periodStart, "periodStart cannot be null");
+        this.value = Objects.requireNonNull(value, "value cannot be null");
+        this.movingAverage = Objects.requireNonNull(movingAverage, "movingAverage cannot be null");
+        this.change = Objects.requireNonNull(change, "change cannot be null");
+    }
+
+    /**
+     * Returns the first day of the period.
+     *
+     * @return the period start
+     */
+    public LocalDate periodStart() {
+        return periodStart;
+    }
+
+    /**
+     * Returns the net amount of the period.
+     *
+     * @return the value
+     */
+    public Money value() {
+        return value;
+    }
+
+    /**
+     * Returns the moving average ending with this period.
+     *
+     * @return the moving average
+     */
+    public Money movingAverage() {
+        return movingAverage;
+    }
+
+    /**
+     * Returns the change from the previous period
+     * (month-over-month for monthly series).
+     *
+     * @return the change
+     */
+    public Money change() {
+        return change;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSeriesPoint{" +
+                "periodStart=" + periodStart +
+                ", value=" + value +
+                ", movingAverage=" + movingAverage +
+                ", change=" + change +
+                '}';
+    }
+}
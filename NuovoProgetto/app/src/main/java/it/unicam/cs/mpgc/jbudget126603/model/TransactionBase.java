@@ -27,4 +27,14 @@ public interface TransactionBase {
 
     /** Returns the tags associated with the transaction. */
     List<Tag> tags();
+
+    /**
+     * Returns the amount in cents, positive for incomes and negative for expenses.
+     *
+     * @return the signed amount in cents
+     */
+    default long signedCents() {
+        long cents = amount().cents();
+        return type() == Type.INCOME ? cents : -cents;
+    }
 }
\ No newline at end of file
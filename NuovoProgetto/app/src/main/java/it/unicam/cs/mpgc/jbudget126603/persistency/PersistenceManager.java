@@ -1,11 +1,17 @@
 package it.unicam.cs.mpgc.jbudget126603.persistency;
 
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
 import it.unicam.cs.mpgc.jbudget126603.model.Tag;
 import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
- * Defines the contract for persistence operations for transactions and tags.
+ * Defines the contract for persistence operations for transactions, tags and budget limits.
+ * Implementations report the failure of any operation by throwing,
+ * typically an {@link java.io.UncheckedIOException}, and never ignore it.
  */
 public interface PersistenceManager {
 
@@ -23,6 +29,22 @@ public interface PersistenceManager {
      */
     List<TransactionBase> loadTransactions();
 
+    /**
+     * Loads all transactions from persistence in batches, handing each batch over
+     * as soon as it is read, so that callers can use the first transactions
+     * before the whole ledger is loaded.
+     * By default the transactions are loaded at once and then split.
+     *
+     * @param batchSize the maximum number of transactions per batch
+     * @param batches   receives the batches, in storage order
+     */
+    default void loadTransactions(int batchSize, Consumer<List<TransactionBase>> batches) {
+        List<TransactionBase> all = loadTransactions();
+        for (int from = 0; from < all.size(); from += batchSize) {
+            batches.accept(new ArrayList<>(all.subList(from, Math.min(all.size(), from + batchSize))));
+        }
+    }
+
     /**
      * Saves the given list of tags.
      *
@@ -36,4 +58,18 @@ public interface PersistenceManager {
      * @return the list of tags
      */
     List<Tag> loadTags();
+
+    /**
+     * Saves the monthly spending limits of the tags.
+     *
+     * @param limits the monthly limit of each limited tag, by tag ID
+     */
+    void saveBudgetLimits(Map<String, Money> limits);
+
+    /**
+     * Loads the monthly spending limits of the tags.
+     *
+     * @return the monthly limit of each limited tag, by tag ID; empty if none were saved
+     */
+    Map<String, Money> loadBudgetLimits();
 }
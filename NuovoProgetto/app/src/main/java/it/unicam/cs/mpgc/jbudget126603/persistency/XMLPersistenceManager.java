@@ -4,35 +4,69 @@ import it.unicam.cs.mpgc.jbudget126603.model.*;
 import org.w3c.dom.*;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Implementation of PersistenceManager that provides
  * XML-based persistence for transactions and tags.
- * Data is stored in two XML files:
- * one for transactions and one for tags. Each transaction may
- * reference multiple tags by their ID.
+ * Data is stored in XML files:
+ * one for transactions, one for tags and one, next to the tags, for the monthly
+ * budget limits of the tags. Each transaction may reference multiple tags by their ID.
+ * Transactions are read with a streaming parser, so that loading never holds
+ * the document tree of the whole ledger in memory.
  */
 public class XMLPersistenceManager implements PersistenceManager {
 
+    /** Number of transactions per batch when loading all of them at once. */
+    private static final int LOAD_BATCH_SIZE = 4096;
+
     private final String transactionsFilePath;
     private final String tagsFilePath;
+    private final String budgetLimitsFilePath;
 
     /**
-     * Creates a new XMLPersistenceManager.
+     * Creates a new XMLPersistenceManager, keeping the budget limits next to the tags,
+     * in a file named after the tags file with "-limits" added ("tags-limits.xml" for "tags.xml").
      *
      * @param transactionsFilePath the path of the XML file where transactions are stored
      * @param tagsFilePath         the path of the XML file where tags are stored
      */
     public XMLPersistenceManager(String transactionsFilePath, String tagsFilePath) {
+        this(transactionsFilePath, tagsFilePath,
+                (tagsFilePath.endsWith(".xml") ? tagsFilePath.substring(0, tagsFilePath.length() - 4) : tagsFilePath)
+                        + "-limits.xml");
+    }
+
+    /**
+     * Creates a new XMLPersistenceManager.
+     *
+     * @param transactionsFilePath the path of the XML file where transactions are stored
+     * @param tagsFilePath         the path of the XML file where tags are stored
+     * @param budgetLimitsFilePath the path of the XML file where budget limits are stored
+     */
+    public XMLPersistenceManager(String transactionsFilePath, String tagsFilePath, String budgetLimitsFilePath) {
         this.transactionsFilePath = transactionsFilePath;
         this.tagsFilePath = tagsFilePath;
+        this.budgetLimitsFilePath = budgetLimitsFilePath;
     }
 
     /**
@@ -41,6 +75,7 @@ public class XMLPersistenceManager implements PersistenceManager {
      * including optional description, recurrence type, and associated tags.
      *
      * @param transactions the list of transactions to save
+     * @throws UncheckedIOException if the file cannot be written
      */
     @Override
     public void saveTransactions(List<TransactionBase> transactions) {
@@ -82,7 +117,7 @@ public class XMLPersistenceManager implements PersistenceManager {
             saveDocument(doc, transactionsFilePath);
 
         } catch (Exception e) {
-            e.printStackTrace();
+            throw failure("write", transactionsFilePath, e);
         }
     }
 
@@ -92,51 +127,73 @@ public class XMLPersistenceManager implements PersistenceManager {
      * Tags are resolved against the tag list loaded from the tags XML file.
      *
      * @return the list of loaded transactions, or an empty list if the file does not exist
+     * @throws UncheckedIOException if a file exists but cannot be read or parsed
      */
     @Override
     public List<TransactionBase> loadTransactions() {
         List<TransactionBase> transactions = new ArrayList<>();
+        loadTransactions(LOAD_BATCH_SIZE, transactions::addAll);
+        return transactions;
+    }
+
+    /**
+     * Streams the transactions XML file, handing over a batch every {@code batchSize}
+     * transactions. Tags are resolved against the tag list loaded from the tags XML file.
+     * If the file cannot be read, the batches already handed over are followed by the exception,
+     * so that callers never take a truncated ledger for a complete one.
+     *
+     * @param batchSize the maximum number of transactions per batch
+     * @param batches   receives the batches, in file order
+     * @throws UncheckedIOException if a file exists but cannot be read or parsed
+     */
+    @Override
+    public void loadTransactions(int batchSize, Consumer<List<TransactionBase>> batches) {
         try {
-            List<Tag> allTags = loadTags(); // Load tags first
+            Map<String, Tag> tagsById = new HashMap<>();
+            for (Tag tag : loadTags()) tagsById.putIfAbsent(tag.id(), tag); // Load tags first
             File file = new File(transactionsFilePath);
-            if (!file.exists()) return transactions;
+            if (!file.exists()) return;
 
-            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            Document doc = builder.parse(file);
-            NodeList txNodes = doc.getElementsByTagName("transaction");
-
-            for (int i = 0; i < txNodes.getLength(); i++) {
-                Element txEl = (Element) txNodes.item(i);
-
-                String id = txEl.getAttribute("id");
-                double amount = Double.parseDouble(txEl.getAttribute("amount"));
-                LocalDate date = LocalDate.parse(txEl.getAttribute("date"));
-                Type type = Type.valueOf(txEl.getAttribute("type"));
-                String recurrenceStr = txEl.getAttribute("recurrence");
-                RecurrenceType recurrence = recurrenceStr.isEmpty() ? null : RecurrenceType.valueOf(recurrenceStr);
-                String description = txEl.hasAttribute("description") ? txEl.getAttribute("description") : null;
-
-                List<Tag> txTags = new ArrayList<>();
-                NodeList tagNodes = txEl.getElementsByTagName("tag");
-                for (int j = 0; j < tagNodes.getLength(); j++) {
-                    Element tagEl = (Element) tagNodes.item(j);
-                    String tagId = tagEl.getAttribute("id");
-                    allTags.stream().filter(t -> t.id().equals(tagId)).findFirst().ifPresent(txTags::add);
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+                try {
+                    List<TransactionBase> batch = new ArrayList<>(batchSize);
+                    PendingTransaction pending = null;
+                    while (reader.hasNext()) {
+                        int event = reader.next();
+                        if (event == XMLStreamConstants.START_ELEMENT) {
+                            if ("transaction".equals(reader.getLocalName())) {
+                                pending = new PendingTransaction(reader);
+                            } else if (pending != null && "tag".equals(reader.getLocalName())) {
+                                Tag tag = tagsById.get(reader.getAttributeValue(null, "id"));
+                                if (tag != null) pending.tags.add(tag);
+                            }
+                        } else if (event == XMLStreamConstants.END_ELEMENT
+                                && pending != null && "transaction".equals(reader.getLocalName())) {
+                            batch.add(pending.toTransaction());
+                            pending = null;
+                            if (batch.size() >= batchSize) {
+                                batches.accept(batch);
+                                batch = new ArrayList<>(batchSize);
+                            }
+                        }
+                    }
+                    if (!batch.isEmpty()) batches.accept(batch);
+                } finally {
+                    reader.close();
                 }
-
-                transactions.add(new Transaction(id, new Money(amount), date, description, type, txTags, recurrence));
             }
 
         } catch (Exception e) {
-            e.printStackTrace();
+            throw failure("read", transactionsFilePath, e);
         }
-        return transactions;
     }
 
     /**
      * Saves the given list of tags to the tags XML file.
      *
      * @param tags the list of tags to save
+     * @throws UncheckedIOException if the file cannot be written
      */
     @Override
     public void saveTags(List<Tag> tags) {
@@ -160,7 +217,7 @@ public class XMLPersistenceManager implements PersistenceManager {
             saveDocument(doc, tagsFilePath);
 
         } catch (Exception e) {
-            e.printStackTrace();
+            throw failure("write", tagsFilePath, e);
         }
     }
 
@@ -169,6 +226,7 @@ public class XMLPersistenceManager implements PersistenceManager {
      * Each tag is reconstructed with its ID, name, and optional parent ID.
      *
      * @return the list of loaded tags, or an empty list if the file does not exist
+     * @throws UncheckedIOException if the file exists but cannot be read or parsed
      */
     @Override
     public List<Tag> loadTags() {
@@ -190,11 +248,84 @@ public class XMLPersistenceManager implements PersistenceManager {
             }
 
         } catch (Exception e) {
-            e.printStackTrace();
+            throw failure("read", tagsFilePath, e);
         }
         return tags;
     }
 
+    /**
+     * Saves the monthly budget limits to the budget limits XML file,
+     * one element per limited tag with the limit as a decimal amount.
+     *
+     * @param limits the monthly limit of each limited tag, by tag ID
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    @Override
+    public void saveBudgetLimits(Map<String, Money> limits) {
+        try {
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            Document doc = builder.newDocument();
+
+            Element root = doc.createElement("budgetLimits");
+            doc.appendChild(root);
+
+            for (Map.Entry<String, Money> limit : limits.entrySet()) {
+                Element limitEl = doc.createElement("limit");
+                limitEl.setAttribute("tagId", limit.getKey());
+                limitEl.setAttribute("amount", limit.getValue().value().toPlainString());
+                root.appendChild(limitEl);
+            }
+
+            saveDocument(doc, budgetLimitsFilePath);
+
+        } catch (Exception e) {
+            throw failure("write", budgetLimitsFilePath, e);
+        }
+    }
+
+    /**
+     * Loads the monthly budget limits from the budget limits XML file.
+     *
+     * @return the monthly limit of each limited tag, by tag ID, or an empty map if the file does not exist
+     * @throws UncheckedIOException if the file exists but cannot be read or parsed
+     */
+    @Override
+    public Map<String, Money> loadBudgetLimits() {
+        Map<String, Money> limits = new LinkedHashMap<>();
+        try {
+            File file = new File(budgetLimitsFilePath);
+            if (!file.exists()) return limits;
+
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            Document doc = builder.parse(file);
+            NodeList limitNodes = doc.getElementsByTagName("limit");
+
+            for (int i = 0; i < limitNodes.getLength(); i++) {
+                Element limitEl = (Element) limitNodes.item(i);
+                limits.put(limitEl.getAttribute("tagId"), new Money(new BigDecimal(limitEl.getAttribute("amount"))));
+            }
+
+        } catch (Exception e) {
+            throw failure("read", budgetLimitsFilePath, e);
+        }
+        return limits;
+    }
+
+    /**
+     * Wraps a failure to read or write a file, so that callers never mistake a damaged
+     * file for an empty one, nor an unsaved change for a saved one.
+     *
+     * @param action   "read" or "write"
+     * @param filePath the file being read or written
+     * @param e        the failure
+     * @return the exception to throw
+     */
+    private static UncheckedIOException failure(String action, String filePath, Exception e) {
+        if (e instanceof UncheckedIOException unchecked) return unchecked;
+        IOException cause = e instanceof IOException io ? io : new IOException(e.getMessage(), e);
+        return new UncheckedIOException("Cannot " + action + " " + filePath + ": " + e.getMessage(), cause);
+    }
+
     /**
      * Saves the given XML document to the specified file path.
      *
@@ -211,4 +342,32 @@ public class XMLPersistenceManager implements PersistenceManager {
         StreamResult result = new StreamResult(new File(filePath));
         transformer.transform(source, result);
     }
+
+    /**
+     * A transaction element being read: its attributes, parsed when the element starts,
+     * and its tags, collected until the element ends.
+     */
+    private static final class PendingTransaction {
+        private final String id;
+        private final double amount;
+        private final LocalDate date;
+        private final Type type;
+        private final RecurrenceType recurrence;
+        private final String description;
+        private final List<Tag> tags = new ArrayList<>();
+
+        private PendingTransaction(XMLStreamReader reader) {
+            this.id = reader.getAttributeValue(null, "id");
+            this.amount = Double.parseDouble(reader.getAttributeValue(null, "amount"));
+            this.date = LocalDate.parse(reader.getAttributeValue(null, "date"));
+            this.type = Type.valueOf(reader.getAttributeValue(null, "type"));
+            String recurrenceStr = reader.getAttributeValue(null, "recurrence");
+            this.recurrence = recurrenceStr == null || recurrenceStr.isEmpty() ? null : RecurrenceType.valueOf(recurrenceStr);
+            this.description = reader.getAttributeValue(null, "description");
+        }
+
+        private Transaction toTransaction() {
+            return new Transaction(id, new Money(amount), date, description, type, tags, recurrence);
+        }
+    }
 }
@@ -1,25 +1,37 @@
 package it.unicam.cs.mpgc.jbudget126603.view;
 
 import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.controller.DuplicateDetector;
+import it.unicam.cs.mpgc.jbudget126603.controller.PeriodBalanceIndex;
+import it.unicam.cs.mpgc.jbudget126603.controller.TagController;
+import it.unicam.cs.mpgc.jbudget126603.controller.TagTree;
 import it.unicam.cs.mpgc.jbudget126603.model.*;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * Modal view for adding or editing a transaction in the application.
  * Provides input fields for amount, date, description, type, tags, and recurrence.
  * Can be used to create a new transaction or edit an existing one.
+ * Tags are suggested from the description as the user types; a transaction saved
+ * without tags gets the suggested tag, if one clearly prevails.
  */
 public class AddTransactionView {
 
+    /** Maximum number of suggested tags */
+    private static final int MAX_SUGGESTIONS = 3;
+
     /** Main application controller */
     private final AppController controller;
 
@@ -50,6 +62,9 @@ public class AddTransactionView {
     /** ComboBox for selecting the recurrence type */
     private final ComboBox<RecurrenceType> recurrenceCombo = new ComboBox<>();
 
+    /** Buttons of the tags suggested by the description */
+    private final HBox suggestionBox = new HBox(5);
+
     /** Stage for the modal dialog */
     private Stage stage;
 
@@ -104,25 +119,29 @@ public class AddTransactionView {
         grid.add(new Label("Description:"), 0, 3);
         grid.add(descriptionField, 1, 3);
 
-        grid.add(new Label("Parent Tag:"), 0, 4);
-        grid.add(parentTagCombo, 1, 4);
+        grid.add(new Label("Suggested:"), 0, 4);
+        grid.add(suggestionBox, 1, 4);
+        descriptionField.textProperty().addListener((obs, oldText, newText) -> updateSuggestions(newText));
 
-        grid.add(new Label("Subtag:"), 0, 5);
-        grid.add(subtagCombo, 1, 5);
+        grid.add(new Label("Parent Tag:"), 0, 5);
+        grid.add(parentTagCombo, 1, 5);
+
+        grid.add(new Label("Subtag:"), 0, 6);
+        grid.add(subtagCombo, 1, 6);
 
         parentTagCombo.setPromptText("Select Parent");
         subtagCombo.setPromptText("Select Subtag");
 
         updateTagCombos();
 
-        grid.add(new Label("Recurrence:"), 0, 6);
+        grid.add(new Label("Recurrence:"), 0, 7);
         recurrenceCombo.getItems().addAll(RecurrenceType.values());
         recurrenceCombo.setPromptText("Optional");
-        grid.add(recurrenceCombo, 1, 6);
+        grid.add(recurrenceCombo, 1, 7);
 
         Button saveBtn = new Button("Save");
         saveBtn.setOnAction(e -> saveTransaction());
-        grid.add(saveBtn, 1, 7);
+        grid.add(saveBtn, 1, 8);
 
         if (editingTransaction != null) {
             amountField.setText(String.valueOf(editingTransaction.amount().value()));
@@ -136,9 +155,11 @@ public class AddTransactionView {
                     if (editingTransaction.tags().size() > 1)
                         subtagCombo.setValue(editingTransaction.tags().get(1));
                 } else {
+                    // the parent combo holds the root of the subtag, whatever its depth
+                    TagController tags = controller.getTagController();
+                    parentTagCombo.setValue(tags.getTagTree().rootOf(first.id())
+                            .flatMap(tags::getTagById).orElse(null));
                     subtagCombo.setValue(first);
-                    parentTagCombo.setValue(controller.getAllTags().stream()
-                            .filter(t -> t.id().equals(first.parentId())).findFirst().orElse(null));
                 }
             }
             recurrenceCombo.setValue(editingTransaction.recurrenceType());
@@ -151,20 +172,93 @@ public class AddTransactionView {
 
     /**
      * Updates the parent and sub-tag combo boxes with the current list of tags
-     * from the controller.
+     * from the controller. Selecting a parent restricts the subtags to its descendants.
      */
     private void updateTagCombos() {
-        List<Tag> parentTags = controller.getAllTags().stream()
-                .filter(t -> t.parentId() == null)
-                .collect(Collectors.toList());
+        List<Tag> parentTags = controller.getTagController().getRootTags();
         parentTagCombo.setItems(FXCollections.observableArrayList(parentTags));
+        parentTagCombo.valueProperty().addListener((obs, oldParent, newParent) -> updateSubtagCombo(newParent));
+        updateSubtagCombo(null);
+    }
 
-        List<Tag> subTags = controller.getAllTags().stream()
-                .filter(t -> t.parentId() != null)
-                .collect(Collectors.toList());
+    /**
+     * Fills the subtag combo box with the descendants (at any depth) of the given parent,
+     * or with every non-root tag if no parent is selected.
+     *
+     * @param parent the selected parent tag, or null
+     */
+    private void updateSubtagCombo(Tag parent) {
+        TagController tags = controller.getTagController();
+        List<Tag> subTags;
+        if (parent == null) {
+            subTags = tags.getAllTags().stream()
+                    .filter(t -> t.parentId() != null)
+                    .collect(Collectors.toList());
+        } else {
+            TagTree tree = tags.getTagTree();
+            subTags = tree.subtreeIds(parent.id()).stream()
+                    .skip(1) // the parent itself
+                    .map(tags::getTagById)
+                    .flatMap(Optional::stream)
+                    .collect(Collectors.toList());
+            Tag selected = subtagCombo.getValue();
+            if (selected != null && !tree.isInSubtree(selected.id(), parent.id())) {
+                subtagCombo.setValue(null);
+            }
+        }
         subtagCombo.setItems(FXCollections.observableArrayList(subTags));
     }
 
+    /**
+     * Shows a button for each of the tags best matching the description.
+     *
+     * @param description the current description
+     */
+    private void updateSuggestions(String description) {
+        suggestionBox.getChildren().clear();
+        for (Tag tag : controller.getTagSuggester().suggest(description, MAX_SUGGESTIONS)) {
+            Button button = new Button(tag.name());
+            button.setOnAction(e -> selectTag(tag));
+            suggestionBox.getChildren().add(button);
+        }
+    }
+
+    /**
+     * Selects a tag in the combo boxes: its root as parent and the tag itself as subtag,
+     * unless it is a root.
+     *
+     * @param tag the tag to select
+     */
+    private void selectTag(Tag tag) {
+        TagController tags = controller.getTagController();
+        Tag root = tags.getTagTree().rootOf(tag.id()).flatMap(tags::getTagById).orElse(tag);
+        parentTagCombo.setValue(root);
+        subtagCombo.setValue(root.id().equals(tag.id()) ? null : tag);
+    }
+
+    /**
+     * Asks the user to confirm a new transaction that duplicates or resembles a recorded one.
+     *
+     * @param transaction the new transaction
+     * @return true if the transaction should be saved
+     */
+    private boolean confirmIfDuplicate(Transaction transaction) {
+        DuplicateDetector duplicates = controller.getDuplicateDetector();
+        String message;
+        if (duplicates.isDuplicate(transaction)) {
+            message = "A transaction with the same date, amount, type and description already exists.";
+        } else {
+            List<TransactionBase> similar = duplicates.findNearDuplicates(transaction);
+            if (similar.isEmpty()) return true;
+            message = "Similar transactions already exist:\n" + similar.stream()
+                    .map(o -> o.date() + "  " + o.amount() + "  " + o.description())
+                    .collect(Collectors.joining("\n"));
+        }
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, message + "\n\nSave anyway?");
+        alert.setHeaderText("Possible duplicate");
+        return alert.showAndWait().filter(b -> b == ButtonType.OK).isPresent();
+    }
+
     /**
      * Reads the data from the input fields, creates or updates a Transaction object,
      * and sends it to the controller. Closes the modal dialog after saving.
@@ -172,6 +266,13 @@ public class AddTransactionView {
     private void saveTransaction() {
         Money amount = new Money(Double.parseDouble(amountField.getText()));
         LocalDate date = datePicker.getValue();
+        if (date == null || !PeriodBalanceIndex.supports(date)) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, "Choose a date between "
+                    + PeriodBalanceIndex.MIN_DATE + " and " + PeriodBalanceIndex.MAX_DATE + ".");
+            alert.setHeaderText("Invalid date");
+            alert.showAndWait();
+            return;
+        }
         Type type = typeCombo.getValue();
         String desc = descriptionField.getText();
 
@@ -184,7 +285,8 @@ public class AddTransactionView {
         } else if (parent != null) {
             tags = List.of(parent);
         } else {
-            Tag other = new Tag("other-id", "Other", null);
+            Tag other = controller.getTagSuggester().suggestTag(desc)
+                    .orElse(new Tag("other-id", "Other", null));
             tags = List.of(other);
         }
 
@@ -195,10 +297,24 @@ public class AddTransactionView {
                 amount, date, desc, type, tags, recurrence
         );
 
-        if (editingTransaction != null) {
-            controller.updateTransaction(editingTransaction.id(), t);
-        } else {
-            controller.addTransaction(t);
+        try {
+            if (editingTransaction != null) {
+                controller.updateTransaction(editingTransaction.id(), t);
+            } else {
+                if (!confirmIfDuplicate(t)) return;
+                controller.addTransaction(t);
+            }
+        } catch (IllegalStateException e) {
+            // refused before anything changed: the dialog stays open
+            Alert alert = new Alert(Alert.AlertType.ERROR, e.getMessage());
+            alert.setHeaderText("The transaction was not saved");
+            alert.showAndWait();
+            return;
+        } catch (UncheckedIOException e) {
+            // recorded in memory; saving again would add a copy with a new ID
+            Alert alert = new Alert(Alert.AlertType.ERROR, e.getMessage());
+            alert.setHeaderText("The transaction was recorded but could not be written to disk");
+            alert.showAndWait();
         }
 
         parentView.refresh();
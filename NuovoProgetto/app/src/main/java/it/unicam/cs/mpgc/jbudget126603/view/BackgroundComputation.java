@@ -0,0 +1,151 @@
+package it.unicam.cs.mpgc.jbudget126603.view;
+
+import javafx.concurrent.Task;
+import javafx.scene.control.ProgressIndicator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Runs the computations of a view as cancellable {@link Task}s on a background executor,
+ * keeping the JavaFX application thread free while the ledger is scanned.
+ * Only the latest request counts: starting a computation cancels the running one,
+ * and a result is published, on the JavaFX application thread, only if no newer
+ * computation was started meanwhile. The progress of the running computation is
+ * shown by a {@link ProgressIndicator}, hidden when nothing runs. A failure is handed,
+ * on the same terms, to a handler that shows it in place of the result.
+ *
+ * @param <T> the type of the results
+ */
+public class BackgroundComputation<T> {
+
+    /**
+     * Work done off the JavaFX application thread.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+
+        /**
+         * Computes the result, reporting progress and stopping early when cancelled.
+         *
+         * @param progress the progress of the computation
+         * @return the result
+         * @throws Exception if the computation fails
+         */
+        T compute(Progress progress) throws Exception;
+    }
+
+    /**
+     * Progress of a running computation.
+     */
+    public interface Progress {
+
+        /**
+         * Reports the work done so far.
+         *
+         * @param done  the units of work done
+         * @param total the total units of work
+         */
+        void update(long done, long total);
+
+        /**
+         * Tells whether the computation was superseded and should stop.
+         *
+         * @return true if the computation was cancelled
+         */
+        boolean isCancelled();
+    }
+
+    private final Executor executor;
+    private final ProgressIndicator indicator;
+    private final Consumer<T> publisher;
+    private final Consumer<Throwable> failureHandler;
+    private Task<T> current;
+
+    /**
+     * Creates a new BackgroundComputation.
+     *
+     * @param executor  the executor running the computations
+     * @param indicator the indicator showing the progress
+     * @param publisher      receives the results on the JavaFX application thread
+     * @param failureHandler receives the failures of the computations on the JavaFX application thread
+     */
+    public BackgroundComputation(Executor executor, ProgressIndicator indicator, Consumer<T> publisher,
+                                 Consumer<Throwable> failureHandler) {
+        this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+        this.indicator = Objects.requireNonNull(indicator, "indicator cannot be null");
+        this.publisher = Objects.requireNonNull(publisher, "publisher cannot be null");
+        this.failureHandler = Objects.requireNonNull(failureHandler, "failureHandler cannot be null");
+        indicator.setVisible(false);
+    }
+
+    /**
+     * Starts a computation, cancelling the running one if any.
+     * Must be called on the JavaFX application thread.
+     *
+     * @param work the work to run
+     */
+    public void start(Work<T> work) {
+        cancel();
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                Task<T> self = this;
+                return work.compute(new Progress() {
+                    @Override
+                    public void update(long done, long total) {
+                        updateProgress(done, total);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return self.isCancelled();
+                    }
+                });
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (current != task) return;
+            finish();
+            publisher.accept(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            if (current != task) return;
+            finish();
+            failureHandler.accept(task.getException());
+        });
+        current = task;
+        indicator.progressProperty().bind(task.progressProperty());
+        indicator.setVisible(true);
+        executor.execute(task);
+    }
+
+    /**
+     * Cancels the running computation, if any; its result is never published.
+     * Must be called on the JavaFX application thread.
+     */
+    public void cancel() {
+        if (current == null) return;
+        current.cancel();
+        finish();
+    }
+
+    /**
+     * Describes a failure for the user.
+     *
+     * @param failure the failure of a computation
+     * @return its message, or its type if it has none
+     */
+    public static String describe(Throwable failure) {
+        String message = failure.getMessage();
+        return message == null || message.isBlank() ? failure.getClass().getSimpleName() : message;
+    }
+
+    private void finish() {
+        current = null;
+        indicator.progressProperty().unbind();
+        indicator.setVisible(false);
+    }
+}
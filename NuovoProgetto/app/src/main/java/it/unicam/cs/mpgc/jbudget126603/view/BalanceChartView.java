@@ -0,0 +1,204 @@
+package it.unicam.cs.mpgc.jbudget126603.view;
+
+import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.controller.Downsampler;
+import it.unicam.cs.mpgc.jbudget126603.controller.PeriodBalanceIndex;
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.util.StringConverter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * View charting the balance over time, day by day.
+ * The chart never holds the whole history: the running balances of the visible range
+ * are fetched from the period balance index and reduced to about one point per pixel
+ * with {@link Downsampler#largestTriangleThreeBuckets(long[], int)}, so the number of
+ * chart nodes depends on the width of the chart and not on the length of the history.
+ * Scrolling zooms around the pointer and dragging pans; every change of the visible
+ * range, or of the width, fetches the detail again in the background.
+ */
+public class BalanceChartView extends VBox implements ViewRefreshable {
+
+    /** Smallest visible range, in days. */
+    private static final long MIN_SPAN_DAYS = 7;
+    /** Change of the visible range for each scroll step. */
+    private static final double ZOOM_FACTOR = 1.25;
+    /** Number of points drawn before the chart has been laid out. */
+    private static final int DEFAULT_POINTS = 800;
+
+    private final PeriodBalanceIndex index;
+    private final ChangeTracker changes;
+    private final NumberAxis xAxis = new NumberAxis();
+    private final LineChart<Number, Number> chart;
+    private final XYChart.Series<Number, Number> series = new XYChart.Series<>();
+    private final Label rangeLabel = new Label();
+    private final BackgroundComputation<List<XYChart.Data<Number, Number>>> computation;
+
+    /** Whether a part of the history is shown rather than all of it. */
+    private boolean zoomed;
+    /** Visible range, as epoch days. */
+    private long visibleFrom;
+    private long visibleTo;
+    private double dragX;
+
+    /**
+     * Constructs the balance chart view.
+     *
+     * @param controller the application controller providing the balances
+     * @param executor   the executor fetching and downsampling the balances
+     */
+    public BalanceChartView(AppController controller, Executor executor) {
+        this.index = controller.getPeriodBalanceIndex();
+        this.changes = new ChangeTracker(controller);
+        setPadding(new Insets(20));
+        setSpacing(15);
+
+        Label title = new Label("Balance Over Time");
+        title.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
+
+        xAxis.setAutoRanging(false);
+        xAxis.setLabel("Date");
+        xAxis.setTickLabelFormatter(new StringConverter<>() {
+            @Override
+            public String toString(Number day) {
+                return LocalDate.ofEpochDay(Math.round(day.doubleValue())).toString();
+            }
+
+            @Override
+            public Number fromString(String text) {
+                return LocalDate.parse(text).toEpochDay();
+            }
+        });
+        NumberAxis yAxis = new NumberAxis();
+        yAxis.setLabel("Balance");
+        yAxis.setForceZeroInRange(false);
+
+        chart = new LineChart<>(xAxis, yAxis);
+        chart.setCreateSymbols(false);
+        chart.setAnimated(false);
+        chart.setLegendVisible(false);
+        chart.getData().add(series);
+        VBox.setVgrow(chart, Priority.ALWAYS);
+
+        chart.setOnScroll(e -> {
+            if (e.getDeltaY() == 0) return;
+            double x = xAxis.sceneToLocal(e.getSceneX(), e.getSceneY()).getX();
+            double center = xAxis.getValueForDisplay(x).doubleValue();
+            double factor = e.getDeltaY() > 0 ? 1 / ZOOM_FACTOR : ZOOM_FACTOR;
+            show(Math.round(center - (center - visibleFrom) * factor),
+                    Math.round(center + (visibleTo - center) * factor));
+        });
+        chart.setOnMousePressed(e -> dragX = e.getX());
+        chart.setOnMouseDragged(e -> {
+            double daysPerPixel = (visibleTo - visibleFrom) / Math.max(1, xAxis.getWidth());
+            long shift = Math.round((dragX - e.getX()) * daysPerPixel);
+            if (shift == 0) return;
+            dragX = e.getX();
+            show(visibleFrom + shift, visibleTo + shift);
+        });
+        chart.widthProperty().addListener((obs, oldWidth, newWidth) -> fetch());
+
+        Button wholeBtn = new Button("Whole History");
+        wholeBtn.setOnAction(e -> {
+            zoomed = false;
+            fetch();
+        });
+
+        ProgressIndicator progress = new ProgressIndicator();
+        progress.setPrefSize(24, 24);
+        computation = new BackgroundComputation<>(executor, progress, points -> series.getData().setAll(points),
+                failure -> {
+                    series.getData().clear();
+                    rangeLabel.setText("Cannot compute the balances: " + BackgroundComputation.describe(failure));
+                });
+
+        HBox controls = new HBox(10, wholeBtn, rangeLabel, progress);
+        controls.setAlignment(Pos.CENTER_LEFT);
+
+        getChildren().addAll(title, controls, chart);
+        refresh();
+    }
+
+    /**
+     * Fetches the visible range again if the transactions changed.
+     */
+    @Override
+    public void refresh() {
+        if (changes.takeChanges()) fetch();
+    }
+
+    /**
+     * Shows a part of the history, kept within the span of the ledger and at least
+     * {@link #MIN_SPAN_DAYS} long; a range covering the whole ledger shows all of it.
+     *
+     * @param from the first day, as epoch day
+     * @param to   the last day, as epoch day
+     */
+    private void show(long from, long to) {
+        Optional<DateRange> span = index.span();
+        if (span.isEmpty()) return;
+        long first = span.get().start().toEpochDay();
+        long last = span.get().end().toEpochDay();
+        long length = Math.max(MIN_SPAN_DAYS, to - from);
+        if (length >= last - first) {
+            zoomed = false;
+        } else {
+            if (from < first) from = first;
+            if (from + length > last) from = last - length;
+            zoomed = true;
+            visibleFrom = from;
+            visibleTo = from + length;
+        }
+        fetch();
+    }
+
+    /**
+     * Fetches the running balances of the visible range and downsamples them
+     * to the width of the chart, in the background.
+     */
+    private void fetch() {
+        Optional<DateRange> span = index.span();
+        if (span.isEmpty()) {
+            computation.cancel();
+            series.getData().clear();
+            rangeLabel.setText("No transactions");
+            return;
+        }
+        if (!zoomed) {
+            visibleFrom = span.get().start().toEpochDay();
+            visibleTo = Math.max(span.get().end().toEpochDay(), visibleFrom + MIN_SPAN_DAYS);
+        }
+        long from = visibleFrom;
+        long to = visibleTo;
+        xAxis.setLowerBound(from);
+        xAxis.setUpperBound(to);
+        xAxis.setTickUnit(Math.max(1, (to - from) / 8.0));
+        rangeLabel.setText(LocalDate.ofEpochDay(from) + " to " + LocalDate.ofEpochDay(to));
+
+        int points = chart.getWidth() > 0 ? Math.max(3, (int) chart.getWidth()) : DEFAULT_POINTS;
+        computation.start(p -> {
+            long[] balances = index.runningBalances(LocalDate.ofEpochDay(from), LocalDate.ofEpochDay(to));
+            int[] kept = Downsampler.largestTriangleThreeBuckets(balances, points);
+            List<XYChart.Data<Number, Number>> data = new ArrayList<>(kept.length);
+            for (int i = 0; i < kept.length; i++) {
+                if (p.isCancelled()) break;
+                data.add(new XYChart.Data<>(from + kept[i], balances[kept[i]] / 100.0));
+            }
+            return data;
+        });
+    }
+}
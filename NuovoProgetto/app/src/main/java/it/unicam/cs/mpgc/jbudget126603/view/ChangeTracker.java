@@ -0,0 +1,69 @@
+package it.unicam.cs.mpgc.jbudget126603.view;
+
+import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.controller.TagController;
+import it.unicam.cs.mpgc.jbudget126603.controller.TransactionListener;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dirty flag of a cached view: tells whether the data shown by the view changed
+ * since the view was last brought up to date, so that the view recomputes
+ * only when needed. Ledger changes are signalled by the {@link TransactionListener}
+ * notifications, which may come from any thread; tag changes are detected
+ * through {@link TagController#version()}. A new tracker reports a change.
+ */
+public class ChangeTracker implements TransactionListener {
+
+    private final TagController tags;
+    private final AtomicBoolean ledgerChanged = new AtomicBoolean(true);
+    private long seenTagVersion;
+    private boolean tagsSeen;
+
+    /**
+     * Creates a tracker of the ledger and the tags of a controller.
+     *
+     * @param controller the application controller
+     */
+    public ChangeTracker(AppController controller) {
+        this.tags = controller.getTagController();
+        controller.addTransactionListener(this);
+    }
+
+    /**
+     * Creates a tracker of the tags only.
+     *
+     * @param tags the tag controller
+     */
+    public ChangeTracker(TagController tags) {
+        this.tags = tags;
+        ledgerChanged.set(false);
+    }
+
+    @Override
+    public void transactionAdded(TransactionBase transaction) {
+        ledgerChanged.set(true);
+    }
+
+    @Override
+    public void transactionRemoved(TransactionBase transaction) {
+        ledgerChanged.set(true);
+    }
+
+    /**
+     * Tells whether the data changed since the last call, and marks it as seen.
+     * Changes made while the view recomputes are reported by the next call.
+     *
+     * @return true if the ledger or the tags changed
+     */
+    public synchronized boolean takeChanges() {
+        boolean changed = ledgerChanged.getAndSet(false);
+        long tagVersion = tags.version();
+        if (!tagsSeen || tagVersion != seenTagVersion) {
+            tagsSeen = true;
+            seenTagVersion = tagVersion;
+            changed = true;
+        }
+        return changed;
+    }
+}
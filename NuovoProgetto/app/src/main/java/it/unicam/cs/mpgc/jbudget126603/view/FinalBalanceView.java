@@ -1,6 +1,8 @@
 package it.unicam.cs.mpgc.jbudget126603.view;
 
 import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.controller.TagController;
+import it.unicam.cs.mpgc.jbudget126603.controller.TagTree;
 import it.unicam.cs.mpgc.jbudget126603.model.Tag;
 import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
 import it.unicam.cs.mpgc.jbudget126603.model.Type;
@@ -9,68 +11,176 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.chart.PieChart;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
- * View displaying the total balance and a pie chart of transactions grouped by parent tag.
+ * View displaying the total balance and a pie chart of transactions grouped by root tag.
  * Incomes are shown in green, expenses in red, future transactions in orange.
+ * The ledger is scanned in the background; the figures appear when the scan completes.
+ * The view is meant to be kept and refreshed: a refresh rescans the ledger only if the
+ * transactions or the tags changed, and updates only the slices whose totals changed.
  */
-public class FinalBalanceView extends VBox {
+public class FinalBalanceView extends VBox implements ViewRefreshable {
+
+    /** Number of transactions scanned between two progress updates. */
+    private static final int PROGRESS_STEP = 4096;
+
+    private final AppController controller;
+    private final ChangeTracker changes;
+    private final Label balanceLabel = new Label("Current Balance: ...");
+    private final PieChart pieChart = new PieChart();
+    /** Slices of the pie chart by name of the root tag. */
+    private final Map<String, PieChart.Data> slices = new HashMap<>();
+    private final BackgroundComputation<Summary> computation;
+    /** Whether the last computation failed, so that the next refresh tries again. */
+    private boolean failed;
 
     /**
      * Constructs the FinalBalanceView with current balance and pie chart.
      *
      * @param controller the application controller providing access to transactions
+     * @param executor   the executor running the computation
      */
-    public FinalBalanceView(AppController controller) {
+    public FinalBalanceView(AppController controller, Executor executor) {
+        this.controller = controller;
+        this.changes = new ChangeTracker(controller);
         setPadding(new Insets(20));
         setSpacing(15);
 
         Label title = new Label("Total Balance");
         title.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
 
-        List<TransactionBase> transactions = controller.getAllTransactions();
+        balanceLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
+
+        pieChart.setLegendVisible(false);
+        pieChart.setLabelsVisible(true);
+
+        ProgressIndicator progress = new ProgressIndicator();
+        progress.setPrefSize(24, 24);
+        HBox header = new HBox(10, balanceLabel, progress);
+        header.setAlignment(Pos.CENTER_LEFT);
+
+        computation = new BackgroundComputation<>(executor, progress, this::show, this::showFailure);
+
+        HBox legend = new HBox(15);
+        legend.setAlignment(Pos.CENTER);
+        legend.setPadding(new Insets(10));
+        legend.getChildren().addAll(
+                createLegendItem(Color.GREEN, "Incomes"),
+                createLegendItem(Color.RED, "Expenses"),
+                createLegendItem(Color.ORANGE, "Future Transactions")
+        );
+
+        getChildren().addAll(title, header, pieChart, legend);
+        refresh();
+    }
 
-        double balance = transactions.stream()
-                .mapToDouble(t -> t.type() == Type.INCOME ? t.amount().toDouble() : -t.amount().toDouble())
-                .sum();
+    /**
+     * Recomputes the figures in the background if the transactions or the tags changed.
+     */
+    @Override
+    public void refresh() {
+        if (changes.takeChanges() || failed) {
+            failed = false;
+            computation.start(p -> summarize(controller, p));
+        }
+    }
+
+    /**
+     * Shows why the figures could not be computed, in place of the balance.
+     *
+     * @param failure the failure of the computation
+     */
+    private void showFailure(Throwable failure) {
+        failed = true;
+        balanceLabel.setText("Current Balance: not available (" + BackgroundComputation.describe(failure) + ")");
+        balanceLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: red;");
+    }
 
-        Label balanceLabel = new Label("Current Balance: " + balance);
+    /**
+     * Shows a summary, changing only the label and the slices whose values differ.
+     *
+     * @param summary the summary to show
+     */
+    private void show(Summary summary) {
+        balanceLabel.setText("Current Balance: " + summary.balance);
         balanceLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; " +
-                (balance >= 0 ? "-fx-text-fill: green;" : "-fx-text-fill: red;"));
+                (summary.balance >= 0 ? "-fx-text-fill: green;" : "-fx-text-fill: red;"));
 
-        PieChart pieChart = new PieChart();
-        pieChart.setLegendVisible(false);
-        pieChart.setLabelsVisible(true);
+        for (Iterator<Map.Entry<String, PieChart.Data>> it = slices.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, PieChart.Data> slice = it.next();
+            if (!summary.grouped.containsKey(slice.getKey())) {
+                pieChart.getData().remove(slice.getValue());
+                it.remove();
+            }
+        }
+        summary.grouped.forEach((tag, value) -> {
+            PieChart.Data slice = slices.get(tag);
+            if (slice == null) {
+                slice = new PieChart.Data(tag, value);
+                slices.put(tag, slice);
+                pieChart.getData().add(slice);
+            } else if (slice.getPieValue() != value) {
+                slice.setPieValue(value);
+            }
+        });
+
+        Platform.runLater(() -> {
+            for (PieChart.Data data : pieChart.getData()) {
+                String color = summary.colorMap.getOrDefault(data.getName(), "gray");
+                if (data.getNode() != null) data.getNode().setStyle("-fx-pie-color: " + color + ";");
+            }
+        });
+    }
+
+    /**
+     * Computes the balance and the totals by root tag; runs off the JavaFX application thread.
+     *
+     * @param controller the application controller providing access to transactions
+     * @param progress   the progress of the computation
+     * @return the summary, partial if the computation was cancelled
+     */
+    private static Summary summarize(AppController controller, BackgroundComputation.Progress progress) {
+        List<TransactionBase> transactions = controller.getAllTransactions();
+        TagController tagController = controller.getTagController();
+        TagTree tree = tagController.getTagTree();
 
+        long balanceCents = 0;
         Map<String, Double> grouped = new HashMap<>();
         Map<String, String> colorMap = new HashMap<>();
         LocalDate today = LocalDate.now();
 
-        for (TransactionBase t : transactions) {
+        for (int i = 0; i < transactions.size(); i++) {
+            if (i % PROGRESS_STEP == 0) {
+                if (progress.isCancelled()) break;
+                progress.update(i, transactions.size());
+            }
+            TransactionBase t = transactions.get(i);
+            balanceCents += t.signedCents();
+
             String tagName = "Other";
             if (!t.tags().isEmpty()) {
                 Tag tag = t.tags().get(0);
                 if (tag.parentId() != null) {
-                    // Find parent tag
-                    Tag parent = controller.getAllTags().stream()
-                            .filter(p -> p.id().equals(tag.parentId()))
-                            .findFirst()
-                            .orElse(tag);
-                    tagName = parent.name();
+                    // Find root tag
+                    Tag root = tree.rootOf(tag.id()).flatMap(tagController::getTagById).orElse(tag);
+                    tagName = root.name();
                 } else {
                     tagName = tag.name();
                 }
             }
 
-            double value = Math.abs(t.type() == Type.INCOME ? t.amount().toDouble() : -t.amount().toDouble());
+            double value = Math.abs(t.amount().toDouble());
             grouped.put(tagName, grouped.getOrDefault(tagName, 0.0) + value);
 
             // Determine color based on last transaction of that tag
@@ -84,26 +194,7 @@ public class FinalBalanceView extends VBox {
             }
             colorMap.put(tagName, color);
         }
-
-        grouped.forEach((tag, value) -> pieChart.getData().add(new PieChart.Data(tag, value)));
-
-        Platform.runLater(() -> {
-            for (PieChart.Data data : pieChart.getData()) {
-                String color = colorMap.getOrDefault(data.getName(), "gray");
-                data.getNode().setStyle("-fx-pie-color: " + color + ";");
-            }
-        });
-
-        HBox legend = new HBox(15);
-        legend.setAlignment(Pos.CENTER);
-        legend.setPadding(new Insets(10));
-        legend.getChildren().addAll(
-                createLegendItem(Color.GREEN, "Incomes"),
-                createLegendItem(Color.RED, "Expenses"),
-                createLegendItem(Color.ORANGE, "Future Transactions")
-        );
-
-        getChildren().addAll(title, balanceLabel, pieChart, legend);
+        return new Summary(balanceCents / 100.0, grouped, colorMap);
     }
 
     private HBox createLegendItem(Color color, String text) {
@@ -114,4 +205,19 @@ public class FinalBalanceView extends VBox {
         box.setAlignment(Pos.CENTER_LEFT);
         return box;
     }
-}
\ No newline at end of file
+
+    /**
+     * Balance and totals by root tag computed by {@link #summarize}.
+     */
+    private static final class Summary {
+        private final double balance;
+        private final Map<String, Double> grouped;
+        private final Map<String, String> colorMap;
+
+        private Summary(double balance, Map<String, Double> grouped, Map<String, String> colorMap) {
+            this.balance = balance;
+            this.grouped = grouped;
+            this.colorMap = colorMap;
+        }
+    }
+}
@@ -1,31 +1,66 @@
 package it.unicam.cs.mpgc.jbudget126603.view;
 
 import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.controller.LedgerRegistry;
 import it.unicam.cs.mpgc.jbudget126603.controller.TagManager;
 import it.unicam.cs.mpgc.jbudget126603.persistency.XMLPersistenceManager;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main JavaFX application class for the Family Budget Management system.
  * Initializes the "it.unicam.cs.mpgc.jbudget126603.controller.AppController",
  * sets up XML persistence, and constructs the main application window with navigation buttons.
  * The view supports adding transactions, listing transactions, viewing total balance,
- * viewing statistics, and managing tags.
+ * viewing statistics, charting the balance over time, and managing tags.
+ * By default the ledger is read from "transactions.xml" and "tags.xml" in the working directory;
+ * launching with "--ledger=&lt;id&gt;" opens the ledger with that id from the "ledgers" directory instead.
+ * The default ledger is loaded in the background after the window is shown,
+ * and the transactions list fills in as the batches arrive.
  */
 public class MainApp extends Application {
 
+    /** Number of transactions loaded between two updates of the window at startup */
+    private static final int LOAD_BATCH_SIZE = 2048;
+
     /** Main application controller */
     private AppController controller;
 
     /** Root layout of the JavaFX scene */
     private BorderPane root;
 
+    /** Clock shared by the views showing the current time */
+    private MinuteClock clock;
+
+    /** Views kept for the whole session, created the first time they are shown */
+    private FinalBalanceView balanceView;
+    private StatisticsView statsView;
+    private BalanceChartView chartView;
+    private TagManagementView tagView;
+
+    /** Executor running the computations of the views off the JavaFX application thread */
+    private ExecutorService viewExecutor;
+
+    /** Executor and registry hosting the ledger, null when the default files are used */
+    private ExecutorService ledgerExecutor;
+    private LedgerRegistry ledgerRegistry;
+    private LedgerRegistry.LedgerHandle ledgerHandle;
+
     /**
      * Starts the JavaFX application.
      * Initializes the main layout, navigation buttons, and central views.
@@ -36,10 +71,17 @@ public class MainApp extends Application {
      */
     @Override
     public void start(Stage primaryStage) {
-        XMLPersistenceManager persistenceManager =
-                new XMLPersistenceManager("transactions.xml", "tags.xml");
-
-        controller = new AppController(persistenceManager);
+        String ledgerId = getParameters().getNamed().get("ledger");
+        if (ledgerId == null) {
+            XMLPersistenceManager persistenceManager =
+                    new XMLPersistenceManager("transactions.xml", "tags.xml");
+            controller = new AppController(persistenceManager, false);
+        } else {
+            ledgerExecutor = Executors.newCachedThreadPool();
+            ledgerRegistry = new LedgerRegistry(Path.of("ledgers"), ledgerExecutor, Duration.ofMinutes(30));
+            ledgerHandle = ledgerRegistry.acquire(ledgerId);
+            controller = ledgerHandle.controller();
+        }
 
         root = new BorderPane();
         root.setStyle("-fx-background-color: linear-gradient(to bottom, #d0e7ff, #a8d0ff);");
@@ -52,17 +94,34 @@ public class MainApp extends Application {
         Button listBtn = new Button("Transactions List");
         Button balanceBtn = new Button("Total Balance");
         Button statsBtn = new Button("Statistics");
+        Button chartBtn = new Button("Balance Chart");
         Button tagsBtn = new Button("Manage Tags");
 
-        for (Button btn : new Button[]{addBtn, listBtn, balanceBtn, statsBtn, tagsBtn}) {
+        for (Button btn : new Button[]{addBtn, listBtn, balanceBtn, statsBtn, chartBtn, tagsBtn}) {
             btn.setMaxWidth(Double.MAX_VALUE);
             btn.setStyle("-fx-font-size: 14px; -fx-padding: 10px;");
         }
 
-        nav.getChildren().addAll(addBtn, listBtn, balanceBtn, statsBtn, tagsBtn);
+        nav.getChildren().addAll(addBtn, listBtn, balanceBtn, statsBtn, chartBtn, tagsBtn);
         root.setLeft(nav);
 
-        TransactionListView listView = new TransactionListView(controller);
+        controller.getBudgetLimitManager().addListener(event -> Platform.runLater(() -> {
+            String tagName = controller.getTagController().getTagById(event.tagId())
+                    .map(Tag::name).orElse(event.tagId());
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Budget Limit");
+            alert.setHeaderText("Monthly limit reached for " + tagName);
+            alert.setContentText("Spent " + event.spent() + " of " + event.limit() + " in " + event.month() + ".");
+            alert.show();
+        }));
+
+        clock = new MinuteClock();
+        viewExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "view-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        TransactionListView listView = new TransactionListView(controller, clock);
         root.setCenter(listView);
 
         addBtn.setOnAction(e -> {
@@ -70,23 +129,116 @@ public class MainApp extends Application {
             addView.showModal();
         });
 
-        listBtn.setOnAction(e -> {
-            listView.refresh();
-            root.setCenter(listView);
-        });
+        listBtn.setOnAction(e -> show(listView));
 
-        balanceBtn.setOnAction(e -> root.setCenter(new FinalBalanceView(controller)));
-        statsBtn.setOnAction(e -> root.setCenter(new StatisticsView(controller)));
+        balanceBtn.setOnAction(e -> {
+            if (balanceView == null) balanceView = new FinalBalanceView(controller, viewExecutor);
+            show(balanceView);
+        });
+        statsBtn.setOnAction(e -> {
+            if (statsView == null) statsView = new StatisticsView(controller, viewExecutor);
+            show(statsView);
+        });
+        chartBtn.setOnAction(e -> {
+            if (chartView == null) chartView = new BalanceChartView(controller, viewExecutor);
+            show(chartView);
+        });
 
         tagsBtn.setOnAction(e -> {
-            TagManagementView tagView = new TagManagementView((TagManager)controller.getTagController());
-            root.setCenter(tagView);
+            if (tagView == null) {
+                tagView = new TagManagementView((TagManager)controller.getTagController(),
+                        controller.getBudgetLimitManager());
+            }
+            show(tagView);
         });
 
         Scene scene = new Scene(root, 900, 600);
         primaryStage.setTitle("Family Budget Management");
         primaryStage.setScene(scene);
         primaryStage.show();
+
+        if (ledgerId == null) loadInBackground(primaryStage, listView);
+    }
+
+    /**
+     * Loads the transactions of the controller on a background thread, refreshing the list
+     * and showing the progress in the window title as the batches arrive.
+     * Updates are coalesced, so a slow JavaFX thread never queues more than one.
+     *
+     * @param stage    the main window
+     * @param listView the transactions list to refresh
+     */
+    private void loadInBackground(Stage stage, TransactionListView listView) {
+        String title = stage.getTitle();
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicBoolean updatePending = new AtomicBoolean();
+        Thread loader = new Thread(() -> {
+            try {
+                controller.loadTransactions(LOAD_BATCH_SIZE, count -> {
+                    loaded.set(count);
+                    if (updatePending.getAndSet(true)) return;
+                    Platform.runLater(() -> {
+                        updatePending.set(false);
+                        stage.setTitle(title + " - loading (" + loaded.get() + " transactions)");
+                        listView.refresh();
+                    });
+                });
+            } catch (RuntimeException e) {
+                if (!controller.isReadOnly()) {
+                    // the whole ledger is loaded; only saving the changes made meanwhile failed
+                    Platform.runLater(() -> {
+                        stage.setTitle(title);
+                        listView.refresh();
+                        Alert alert = new Alert(Alert.AlertType.ERROR, e.getMessage());
+                        alert.setHeaderText("The changes made while loading could not be written to disk");
+                        alert.show();
+                    });
+                    return;
+                }
+                Platform.runLater(() -> {
+                    stage.setTitle(title + " - read-only");
+                    listView.refresh();
+                    Alert alert = new Alert(Alert.AlertType.ERROR, e.getMessage()
+                            + "\n\nOnly the first " + loaded.get() + " transactions are shown. The ledger is read-only,"
+                            + " so the file is not overwritten; changes made while loading were not saved.");
+                    alert.setHeaderText("The ledger could not be loaded completely");
+                    alert.show();
+                });
+                return;
+            }
+            Platform.runLater(() -> {
+                stage.setTitle(title);
+                listView.refresh();
+            });
+        }, "ledger-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Shows a view in the center of the window, bringing it up to date first.
+     * Cached views recompute only what changed since they were last shown.
+     *
+     * @param view the view to show
+     * @param <V>  the type of the view
+     */
+    private <V extends Node & ViewRefreshable> void show(V view) {
+        view.refresh();
+        root.setCenter(view);
+    }
+
+    /**
+     * Stops the clock and the view executor, and releases the ledger registry, if one was used.
+     */
+    @Override
+    public void stop() {
+        if (clock != null) clock.stop();
+        if (viewExecutor != null) viewExecutor.shutdownNow();
+        if (ledgerRegistry != null) {
+            ledgerHandle.close();
+            ledgerRegistry.close();
+            ledgerExecutor.shutdown();
+        }
     }
 
     /**
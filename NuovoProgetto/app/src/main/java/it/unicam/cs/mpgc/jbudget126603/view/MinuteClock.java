@@ -0,0 +1,77 @@
+package it.unicam.cs.mpgc.jbudget126603.view;
+
+import javafx.animation.PauseTransition;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.util.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Clock shared by the views, ticking on the JavaFX application thread at the start of every minute.
+ * Views bind to {@link #nowProperty()} instead of reading the system clock while rendering,
+ * so the system clock is read once per minute and everything derived from the time
+ * is recomputed once per tick, for all the cells showing it.
+ */
+public class MinuteClock {
+
+    private final ReadOnlyObjectWrapper<LocalDateTime> now = new ReadOnlyObjectWrapper<>(currentMinute());
+    private final PauseTransition timer = new PauseTransition();
+
+    /**
+     * Creates a clock, already running.
+     */
+    public MinuteClock() {
+        timer.setOnFinished(e -> {
+            now.set(currentMinute());
+            schedule();
+        });
+        schedule();
+    }
+
+    /**
+     * Returns the current time, truncated to the minute, updated at every tick.
+     *
+     * @return the time property
+     */
+    public ReadOnlyObjectProperty<LocalDateTime> nowProperty() {
+        return now.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns the time of the last tick.
+     *
+     * @return the current time, truncated to the minute
+     */
+    public LocalDateTime getNow() {
+        return now.get();
+    }
+
+    /**
+     * Returns the date of the last tick.
+     *
+     * @return the current date
+     */
+    public LocalDate today() {
+        return now.get().toLocalDate();
+    }
+
+    /**
+     * Stops the clock; the time is not updated any more.
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    private void schedule() {
+        LocalDateTime current = LocalDateTime.now();
+        long millis = java.time.Duration.between(current, current.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1)).toMillis();
+        timer.setDuration(Duration.millis(Math.max(1, millis)));
+        timer.playFromStart();
+    }
+
+    private static LocalDateTime currentMinute() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+    }
+}
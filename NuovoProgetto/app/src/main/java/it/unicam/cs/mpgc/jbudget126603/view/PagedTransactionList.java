@@ -0,0 +1,83 @@
+package it.unicam.cs.mpgc.jbudget126603.view;
+
+import it.unicam.cs.mpgc.jbudget126603.controller.SortedTransactionIndex;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import javafx.collections.ObservableListBase;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only observable list over a {@link SortedTransactionIndex}, for virtualized tables.
+ * Rows are fetched lazily in pages of {@link #PAGE_SIZE} when the table asks for them,
+ * and only the most recently used pages are kept, so the memory of the list depends
+ * on the visible window and not on the size of the ledger.
+ * The rows are those shown by the index, in its order and with its filter.
+ * Positions refer to the index as it was at the last {@link #reload()};
+ * after a change of the index the rows may be shifted, or null past its end,
+ * until the next reload.
+ */
+public class PagedTransactionList extends ObservableListBase<Transaction> {
+
+    /** Number of rows fetched at once. */
+    public static final int PAGE_SIZE = 256;
+
+    /** Number of pages kept in memory. */
+    private static final int MAX_PAGES = 8;
+
+    private final SortedTransactionIndex index;
+    private int size;
+    private final Map<Integer, List<Transaction>> pages = new LinkedHashMap<>(MAX_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Transaction>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    /**
+     * Creates a list showing the transactions of an index.
+     *
+     * @param index the sorted index to read from
+     */
+    public PagedTransactionList(SortedTransactionIndex index) {
+        this.index = index;
+        this.size = index.size();
+    }
+
+    /**
+     * Drops the cached pages and shows the rows of the index as they are now.
+     */
+    public void reload() {
+        int oldSize = size;
+        this.size = index.size();
+        pages.clear();
+        beginChange();
+        if (oldSize > 0) nextRemove(0, Collections.nCopies(oldSize, (Transaction) null));
+        if (size > 0) nextAdd(0, size);
+        endChange();
+    }
+
+    @Override
+    public Transaction get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        int page = i / PAGE_SIZE;
+        List<Transaction> rows = pages.computeIfAbsent(page, this::fetch);
+        int offset = i - page * PAGE_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private List<Transaction> fetch(int page) {
+        List<TransactionBase> rows = index.page(page * PAGE_SIZE, PAGE_SIZE);
+        List<Transaction> result = new ArrayList<>(rows.size());
+        for (TransactionBase t : rows) result.add((Transaction) t);
+        return result;
+    }
+}
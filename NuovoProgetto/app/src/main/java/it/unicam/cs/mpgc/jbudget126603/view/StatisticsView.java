@@ -1,11 +1,12 @@
 package it.unicam.cs.mpgc.jbudget126603.view;
 
 import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.controller.TagController;
+import it.unicam.cs.mpgc.jbudget126603.controller.TagTree;
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
 import it.unicam.cs.mpgc.jbudget126603.model.Tag;
-import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
-import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
-import it.unicam.cs.mpgc.jbudget126603.model.Type;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.CategoryAxis;
@@ -15,16 +16,43 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.application.Platform;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
 
 /**
- * View displaying statistics of transactions by parent tag and date range.
+ * View displaying statistics of transactions by root tag and date range.
+ * Filtering by a tag includes all of its descendants.
+ * The totals are computed in the background; generating a chart again
+ * supersedes the computation still running.
+ * The view is meant to be kept and refreshed: a refresh recomputes the last chart
+ * only if the transactions or the tags changed, and updates only the bars whose totals changed.
  */
-public class StatisticsView extends VBox {
-
-    public StatisticsView(AppController controller) {
+public class StatisticsView extends VBox implements ViewRefreshable {
+
+    private final AppController controller;
+    private final ChangeTracker changes;
+    private final ComboBox<Tag> tagCombo = new ComboBox<>();
+    private final XYChart.Series<String, Number> series = new XYChart.Series<>();
+    /** Bars of the chart by name of the root tag. */
+    private final Map<String, XYChart.Data<String, Number>> bars = new HashMap<>();
+    private final BackgroundComputation<Map<String, Double>> computation;
+    private final Label errorLabel = new Label();
+    /** Computation of the chart last generated, null before the first one. */
+    private BackgroundComputation.Work<Map<String, Double>> lastWork;
+
+    /**
+     * Constructs the statistics view.
+     *
+     * @param controller the application controller providing the totals
+     * @param executor   the executor running the computations
+     */
+    public StatisticsView(AppController controller, Executor executor) {
+        this.controller = controller;
+        this.changes = new ChangeTracker(controller);
         setPadding(new Insets(20));
         setSpacing(15);
 
@@ -37,12 +65,6 @@ public class StatisticsView extends VBox {
         endDatePicker.setPromptText("End Date");
 
         // ComboBox for selecting parent tag
-        ComboBox<Tag> tagCombo = new ComboBox<>();
-        List<Tag> parentTags = controller.getAllTags().stream()
-                .filter(t -> t.parentId() == null)
-                .toList();
-        tagCombo.getItems().add(null); // optional: no filter
-        tagCombo.getItems().addAll(parentTags);
         tagCombo.setPromptText("Select Parent Tag");
 
         tagCombo.setCellFactory(lv -> new ListCell<>() {
@@ -68,58 +90,100 @@ public class StatisticsView extends VBox {
         yAxis.setLabel("Amount");
         BarChart<String, Number> barChart = new BarChart<>(xAxis, yAxis);
         barChart.setLegendVisible(false);
+        barChart.getData().add(series);
+
+        ProgressIndicator progress = new ProgressIndicator();
+        progress.setPrefSize(24, 24);
+        computation = new BackgroundComputation<>(executor, progress, this::showTotals,
+                failure -> errorLabel.setText("Cannot compute the totals: " + BackgroundComputation.describe(failure)));
+        errorLabel.setStyle("-fx-text-fill: red;");
 
         generateBtn.setOnAction(e -> {
             LocalDate start = startDatePicker.getValue();
             LocalDate end = endDatePicker.getValue();
             Tag selectedParent = tagCombo.getValue();
-
-            List<TransactionBase> filtered = controller.getAllTransactions().stream()
-                    .filter(t -> (start == null || !t.date().isBefore(start)) &&
-                            (end == null || !t.date().isAfter(end)) &&
-                            (selectedParent == null || (t instanceof Transaction tx && !tx.tags().isEmpty() &&
-                                    tx.tags().stream().anyMatch(tag ->
-                                            tag.parentId() != null && tag.parentId().equals(selectedParent.id())
-                                                    || tag.id().equals(selectedParent.id())
-                                    ))))
-                    .toList();
-
-            Map<String, Double> totalsByTag = filtered.stream()
-                    .collect(Collectors.groupingBy(
-                            t -> {
-                                if (t instanceof Transaction tx && !tx.tags().isEmpty()) {
-                                    Tag tag = tx.tags().get(0);
-                                    if (tag.parentId() != null) {
-                                        Tag parent = controller.getAllTags().stream()
-                                                .filter(p -> p.id().equals(tag.parentId()))
-                                                .findFirst().orElse(tag);
-                                        return parent.name();
-                                    } else return tag.name();
-                                }
-                                return "Other";
-                            },
-                            Collectors.summingDouble(t -> t.type() == Type.INCOME ? t.amount().toDouble() : -t.amount().toDouble())
-                    ));
-
-            barChart.getData().clear();
-            XYChart.Series<String, Number> series = new XYChart.Series<>();
-            totalsByTag.forEach((tagName, amount) -> series.getData().add(new XYChart.Data<>(tagName, amount)));
-            barChart.getData().add(series);
-
-            // Color the bars: green for income, red for expense
-            Platform.runLater(() -> {
-                for (XYChart.Data<String, Number> data : series.getData()) {
-                    String tagName = data.getXValue();
-                    double total = data.getYValue().doubleValue();
-                    String color = total >= 0 ? "green" : "red";
-                    data.getNode().setStyle("-fx-bar-fill: " + color + ";");
+            TagController tags = controller.getTagController();
+
+            lastWork = p -> {
+                // Totals come pre-aggregated from the cube, grouped by root tag
+                Map<String, Double> totalsByTag = new HashMap<>();
+                if (start == null || end == null || !start.isAfter(end)) {
+                    TagTree tree = tags.getTagTree();
+                    Map<String, Long> centsByRoot = controller.getTagPeriodCube().signedCentsByRoot(
+                            new DateRange(start, end), selectedParent == null ? null : selectedParent.id(), tree);
+                    long done = 0;
+                    for (Map.Entry<String, Long> entry : centsByRoot.entrySet()) {
+                        if (p.isCancelled()) return totalsByTag;
+                        String name = tags.getTagById(entry.getKey()).map(Tag::name).orElse("Other");
+                        totalsByTag.merge(name, entry.getValue() / 100.0, Double::sum);
+                        p.update(++done, centsByRoot.size());
+                    }
                 }
-            });
+                return totalsByTag;
+            };
+            computation.start(lastWork);
         });
 
-        HBox filters = new HBox(10, startDatePicker, endDatePicker, tagCombo, generateBtn);
+        HBox filters = new HBox(10, startDatePicker, endDatePicker, tagCombo, generateBtn, progress, errorLabel);
+        filters.setAlignment(Pos.CENTER_LEFT);
         filters.setPadding(new Insets(10));
 
         getChildren().addAll(title, filters, barChart);
+        refresh();
+    }
+
+    /**
+     * Reloads the root tags and recomputes the last chart, if the transactions or the tags changed.
+     */
+    @Override
+    public void refresh() {
+        if (!changes.takeChanges()) return;
+
+        String selectedId = tagCombo.getValue() == null ? null : tagCombo.getValue().id();
+        List<Tag> parentTags = controller.getTagController().getRootTags();
+        List<Tag> items = new ArrayList<>(parentTags.size() + 1);
+        items.add(null); // optional: no filter
+        items.addAll(parentTags);
+        tagCombo.getItems().setAll(items);
+        if (selectedId != null) {
+            parentTags.stream().filter(t -> t.id().equals(selectedId)).findFirst().ifPresent(tagCombo::setValue);
+        }
+
+        if (lastWork != null) computation.start(lastWork);
+    }
+
+    /**
+     * Shows the given totals, changing only the bars whose values differ.
+     *
+     * @param totalsByTag the totals by name of the root tag
+     */
+    private void showTotals(Map<String, Double> totalsByTag) {
+        errorLabel.setText("");
+        for (Iterator<Map.Entry<String, XYChart.Data<String, Number>>> it = bars.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, XYChart.Data<String, Number>> bar = it.next();
+            if (!totalsByTag.containsKey(bar.getKey())) {
+                series.getData().remove(bar.getValue());
+                it.remove();
+            }
+        }
+        totalsByTag.forEach((tagName, amount) -> {
+            XYChart.Data<String, Number> bar = bars.get(tagName);
+            if (bar == null) {
+                bar = new XYChart.Data<>(tagName, amount);
+                bars.put(tagName, bar);
+                series.getData().add(bar);
+            } else if (bar.getYValue().doubleValue() != amount) {
+                bar.setYValue(amount);
+            }
+        });
+
+        // Color the bars: green for income, red for expense
+        Platform.runLater(() -> {
+            for (XYChart.Data<String, Number> data : series.getData()) {
+                double total = data.getYValue().doubleValue();
+                String color = total >= 0 ? "green" : "red";
+                if (data.getNode() != null) data.getNode().setStyle("-fx-bar-fill: " + color + ";");
+            }
+        });
     }
 }
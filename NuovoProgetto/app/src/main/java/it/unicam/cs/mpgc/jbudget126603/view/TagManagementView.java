@@ -1,6 +1,8 @@
 package it.unicam.cs.mpgc.jbudget126603.view;
 
+import it.unicam.cs.mpgc.jbudget126603.controller.BudgetLimitManager;
 import it.unicam.cs.mpgc.jbudget126603.controller.TagManager;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
 import it.unicam.cs.mpgc.jbudget126603.model.Tag;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
@@ -8,15 +10,23 @@ import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 /**
  * View for managing hierarchical tags with support for parent and child tags.
+ * When a budget limit manager is given, the monthly spending limit of the
+ * selected tag can also be set or cleared.
+ * The view is meant to be kept and refreshed: a refresh reloads the lists
+ * only if the tags changed, keeping the selection.
  */
-public class TagManagementView extends VBox {
+public class TagManagementView extends VBox implements ViewRefreshable {
 
     private final TagManager tagManager;
     private final ListView<Tag> parentListView;
     private final ListView<Tag> childListView;
+    private final BudgetLimitManager limitManager;
+    private final ChangeTracker changes;
 
     /**
      * Constructs the tag management view.
@@ -24,7 +34,19 @@ public class TagManagementView extends VBox {
      * @param tagManager the tag manager responsible for persistence and retrieval
      */
     public TagManagementView(TagManager tagManager) {
+        this(tagManager, null);
+    }
+
+    /**
+     * Constructs the tag management view with monthly limit editing.
+     *
+     * @param tagManager   the tag manager responsible for persistence and retrieval
+     * @param limitManager the manager of the monthly limits, or null to hide limit editing
+     */
+    public TagManagementView(TagManager tagManager, BudgetLimitManager limitManager) {
         this.tagManager = tagManager;
+        this.limitManager = limitManager;
+        this.changes = new ChangeTracker(tagManager);
 
         setPadding(new Insets(20));
         setSpacing(15);
@@ -59,6 +81,12 @@ public class TagManagementView extends VBox {
             }
         });
 
+        parentListView.getSelectionModel().selectedItemProperty().addListener((obs, oldSel, newSel) -> {
+            if (newSel != null) {
+                childListView.setItems(FXCollections.observableArrayList(tagManager.getChildrenTags(newSel.id())));
+            }
+        });
+
         TextField tagNameField = new TextField();
         tagNameField.setPromptText("Tag name");
 
@@ -68,7 +96,7 @@ public class TagManagementView extends VBox {
         addParentBtn.setOnAction(e -> {
             String name = tagNameField.getText();
             if (!name.isBlank()) {
-                tagManager.createTag(name, null);
+                saving(() -> tagManager.createTag(name, null));
                 refresh();
                 tagNameField.clear();
             }
@@ -78,7 +106,7 @@ public class TagManagementView extends VBox {
             Tag parent = parentListView.getSelectionModel().getSelectedItem();
             String name = tagNameField.getText();
             if (parent != null && !name.isBlank()) {
-                tagManager.createTag(name, parent.id());
+                saving(() -> tagManager.createTag(name, parent.id()));
                 refresh();
                 tagNameField.clear();
             }
@@ -92,22 +120,101 @@ public class TagManagementView extends VBox {
                 new VBox(new Label("Child Tags"), childListView));
 
         getChildren().addAll(title, inputBox, listsBox);
+        if (limitManager != null) getChildren().add(createLimitBox());
         refresh();
     }
 
-    private void refresh() {
+    /**
+     * Creates the controls to set the monthly limit of the selected tag
+     * (the selected child if any, otherwise the selected parent).
+     */
+    private HBox createLimitBox() {
+        TextField limitField = new TextField();
+        limitField.setPromptText("Monthly limit");
+        Label currentLimit = new Label();
+        Button setLimitBtn = new Button("Set Limit");
+        Button clearLimitBtn = new Button("Clear Limit");
+
+        Runnable showLimit = () -> {
+            Tag tag = selectedTag();
+            currentLimit.setText(tag == null ? "" : limitManager.getLimit(tag.id())
+                    .map(l -> "Limit of " + tag.name() + ": " + l)
+                    .orElse("No limit for " + tag.name()));
+        };
+        parentListView.getSelectionModel().selectedItemProperty().addListener((obs, o, n) -> showLimit.run());
+        childListView.getSelectionModel().selectedItemProperty().addListener((obs, o, n) -> showLimit.run());
+
+        setLimitBtn.setOnAction(e -> {
+            Tag tag = selectedTag();
+            if (tag == null) return;
+            try {
+                Money limit = new Money(Double.parseDouble(limitField.getText()));
+                saving(() -> limitManager.setLimit(tag.id(), limit));
+                limitField.clear();
+                showLimit.run();
+            } catch (NumberFormatException ex) {
+                currentLimit.setText("Invalid amount");
+            }
+        });
+        clearLimitBtn.setOnAction(e -> {
+            Tag tag = selectedTag();
+            if (tag != null) {
+                saving(() -> limitManager.removeLimit(tag.id()));
+                showLimit.run();
+            }
+        });
+
+        HBox limitBox = new HBox(10, limitField, setLimitBtn, clearLimitBtn, currentLimit);
+        limitBox.setAlignment(Pos.CENTER);
+        return limitBox;
+    }
+
+    /**
+     * Applies a change, telling the user if it could not be written to disk; the change is kept in memory anyway.
+     */
+    private static void saving(Runnable change) {
+        try {
+            change.run();
+        } catch (UncheckedIOException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, e.getMessage());
+            alert.setHeaderText("The change was applied but could not be written to disk");
+            alert.show();
+        }
+    }
+
+    private Tag selectedTag() {
+        Tag child = childListView.getSelectionModel().getSelectedItem();
+        return child != null ? child : parentListView.getSelectionModel().getSelectedItem();
+    }
+
+    /**
+     * Reloads the parent and child lists if the tags changed, selecting again the tags selected before.
+     */
+    @Override
+    public void refresh() {
+        if (!changes.takeChanges()) return;
+        Tag oldParent = parentListView.getSelectionModel().getSelectedItem();
+        Tag oldChild = childListView.getSelectionModel().getSelectedItem();
+
         parentListView.setItems(FXCollections.observableArrayList(tagManager.getRootTags()));
+        reselect(parentListView, oldParent);
         Tag selectedParent = parentListView.getSelectionModel().getSelectedItem();
         if (selectedParent != null) {
             childListView.setItems(FXCollections.observableArrayList(tagManager.getChildrenTags(selectedParent.id())));
+            reselect(childListView, oldChild);
         } else {
             childListView.setItems(FXCollections.emptyObservableList());
         }
+    }
 
-        parentListView.getSelectionModel().selectedItemProperty().addListener((obs, oldSel, newSel) -> {
-            if (newSel != null) {
-                childListView.setItems(FXCollections.observableArrayList(tagManager.getChildrenTags(newSel.id())));
+    private static void reselect(ListView<Tag> listView, Tag tag) {
+        if (tag == null) return;
+        List<Tag> items = listView.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).id().equals(tag.id())) {
+                listView.getSelectionModel().select(i);
+                return;
             }
-        });
+        }
     }
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package it.unicam.cs.mpgc.jbudget126603.view;
 
 import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.controller.SortKey;
 import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
-import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
 import it.unicam.cs.mpgc.jbudget126603.model.Type;
-import javafx.collections.FXCollections;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ObservableValue;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -12,63 +16,123 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
+import javafx.util.Callback;
+import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * View displaying the list of transactions with colored amounts, expiration column, and legend.
  * Recurrence transactions are blue, future transactions are orange,
  * incomes are green, and expenses are red.
+ * Expenses flagged as unusual for their tag are highlighted.
+ * The search box filters the transactions by description through the inverted index.
+ * Rows are read lazily, a page at a time, from the sorted index of the controller,
+ * which also sorts them by the date, amount, tag and type columns (several at once
+ * with shift-click) and applies the search, both kept up to date on every change.
+ * Countdowns and colors follow a shared {@link MinuteClock}: the countdown texts are
+ * built once per tick and date, and the visible cells are updated at every tick.
  */
 public class TransactionListView extends VBox implements ViewRefreshable {
 
     private final AppController controller;
+    private static final String ANOMALY_COLOR = "#fff3b0";
+
     private final TableView<Transaction> table = new TableView<>();
+    private final PagedTransactionList items;
+    private final TextField searchField = new TextField();
+    /** Sort key of each sortable column. */
+    private final Map<TableColumn<Transaction, ?>, SortKey.Column> sortColumns = new HashMap<>();
+    /** Search text of the filter set on the index, null if none. */
+    private String appliedSearch;
+    private final MinuteClock clock;
+    /** Countdown texts by date, valid for the tick in countdownTick. */
+    private final Map<LocalDate, String> countdowns = new HashMap<>();
+    private LocalDateTime countdownTick;
+    private LocalDate shownDay;
+    /** Redraws the rows when the day changes; held here because the clock only references it weakly. */
+    private final InvalidationListener dayListener;
 
     /**
      * Constructs the transaction list view.
      *
      * @param controller the application controller providing transactions
+     * @param clock      the clock driving the countdowns
      */
-    public TransactionListView(AppController controller) {
+    public TransactionListView(AppController controller, MinuteClock clock) {
         this.controller = controller;
+        this.clock = clock;
+        this.shownDay = clock.today();
+        this.dayListener = obs -> {
+            if (!clock.today().equals(shownDay)) {
+                shownDay = clock.today();
+                table.refresh();
+            }
+        };
+        clock.nowProperty().addListener(new WeakInvalidationListener(dayListener));
+        this.items = new PagedTransactionList(controller.getSortedTransactions());
         setPadding(new Insets(20));
         setSpacing(15);
 
         Label title = new Label("Transactions List");
         title.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
 
+        searchField.setPromptText("Search description");
+        searchField.textProperty().addListener((obs, oldText, newText) -> refresh());
+
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setRowFactory(tv -> new TableRow<>() {
+            @Override
+            protected void updateItem(Transaction item, boolean empty) {
+                super.updateItem(item, empty);
+                if (!empty && item != null && controller.getAnomalyDetector().isAnomalous(item.id())) {
+                    setStyle("-fx-background-color: " + ANOMALY_COLOR + ";");
+                    setTooltip(new Tooltip(String.format("Unusually high for this tag (%.1f standard deviations above its average)",
+                            controller.getAnomalyDetector().score(item.id()).orElse(0))));
+                } else {
+                    setStyle("");
+                    setTooltip(null);
+                }
+            }
+        });
 
         TableColumn<Transaction, String> idCol = new TableColumn<>("ID");
-        idCol.setCellValueFactory(d -> new javafx.beans.property.SimpleStringProperty(d.getValue().id()));
+        idCol.setCellValueFactory(text(Transaction::id));
 
         TableColumn<Transaction, String> typeCol = new TableColumn<>("Type");
-        typeCol.setCellValueFactory(d -> new javafx.beans.property.SimpleStringProperty(d.getValue().type().toString()));
+        typeCol.setCellValueFactory(text(t -> t.type().toString()));
 
         TableColumn<Transaction, String> tagCol = new TableColumn<>("Tag");
-        tagCol.setCellValueFactory(d -> {
-            List<?> tags = d.getValue().tags();
-            String name = tags.isEmpty() ? "Other" : ((it.unicam.cs.mpgc.jbudget126603.model.Tag) tags.get(0)).name();
-            return new javafx.beans.property.SimpleStringProperty(name);
-        });
+        tagCol.setCellValueFactory(text(t -> {
+            List<?> tags = t.tags();
+            if (tags.isEmpty()) return "Other";
+            it.unicam.cs.mpgc.jbudget126603.model.Tag tag = (it.unicam.cs.mpgc.jbudget126603.model.Tag) tags.get(0);
+            // the current name, as the rows are sorted by it
+            return controller.getTagController().getTagById(tag.id()).orElse(tag).name();
+        }));
 
         TableColumn<Transaction, String> amountCol = new TableColumn<>("Amount");
-        amountCol.setCellValueFactory(d -> new javafx.beans.property.SimpleStringProperty(d.getValue().amount().toString()));
+        amountCol.setCellValueFactory(text(t -> t.amount().toString()));
         amountCol.setCellFactory(col -> new TableCell<>() {
             @Override
             protected void updateItem(String item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty) {
+                Transaction t = getTableRow() == null ? null : getTableRow().getItem();
+                if (empty || t == null) {
                     setText(null);
                     setStyle("");
                 } else {
-                    Transaction t = getTableView().getItems().get(getIndex());
                     setText(item);
                     if (t.recurrenceType() != null) {
                         setStyle("-fx-text-fill: blue;"); // recurrence
-                    } else if (t.date().isAfter(LocalDateTime.now().toLocalDate())) {
+                    } else if (t.date().isAfter(clock.today())) {
                         setStyle("-fx-text-fill: orange;"); // future
                     } else if (t.type() == Type.INCOME) {
                         setStyle("-fx-text-fill: green;"); // income
@@ -82,20 +146,9 @@ public class TransactionListView extends VBox implements ViewRefreshable {
         });
 
         TableColumn<Transaction, String> expirationCol = new TableColumn<>("Expiration");
-        expirationCol.setCellValueFactory(d -> {
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime txDate = d.getValue().date().atStartOfDay();
-            if (txDate.isAfter(now)) {
-                Duration diff = Duration.between(now, txDate);
-                long days = diff.toDays();
-                long hours = diff.toHours() % 24;
-                long minutes = diff.toMinutes() % 60;
-                String expiration = days + "d " + hours + "h " + minutes + "m";
-                return new javafx.beans.property.SimpleStringProperty(expiration);
-            } else {
-                return new javafx.beans.property.SimpleStringProperty("-");
-            }
-        });
+        expirationCol.setCellValueFactory(d -> d.getValue() == null
+                ? new SimpleStringProperty("")
+                : Bindings.createStringBinding(() -> countdown(d.getValue().date()), clock.nowProperty()));
         expirationCol.setCellFactory(col -> new TableCell<>() {
             @Override
             protected void updateItem(String item, boolean empty) {
@@ -110,11 +163,10 @@ public class TransactionListView extends VBox implements ViewRefreshable {
         });
 
         TableColumn<Transaction, String> dateCol = new TableColumn<>("Date");
-        dateCol.setCellValueFactory(d -> new javafx.beans.property.SimpleStringProperty(d.getValue().date().toString()));
+        dateCol.setCellValueFactory(text(t -> t.date().toString()));
 
         TableColumn<Transaction, String> descCol = new TableColumn<>("Description");
-        descCol.setCellValueFactory(d -> new javafx.beans.property.SimpleStringProperty(
-                d.getValue().description() != null ? d.getValue().description() : ""));
+        descCol.setCellValueFactory(text(t -> t.description() != null ? t.description() : ""));
 
         TableColumn<Transaction, Void> actionCol = new TableColumn<>("Actions");
         actionCol.setCellFactory(col -> new TableCell<>() {
@@ -124,13 +176,24 @@ public class TransactionListView extends VBox implements ViewRefreshable {
 
             {
                 editBtn.setOnAction(e -> {
-                    Transaction t = getTableView().getItems().get(getIndex());
-                    new AddTransactionView(controller, TransactionListView.this, t).showModal();
+                    Transaction t = getTableRow().getItem();
+                    if (t != null) new AddTransactionView(controller, TransactionListView.this, t).showModal();
                 });
 
                 delBtn.setOnAction(e -> {
-                    Transaction t = getTableView().getItems().get(getIndex());
-                    controller.removeTransaction(t.id());
+                    Transaction t = getTableRow().getItem();
+                    if (t == null) return;
+                    try {
+                        controller.removeTransaction(t.id());
+                    } catch (IllegalStateException ex) {
+                        Alert alert = new Alert(Alert.AlertType.ERROR, ex.getMessage());
+                        alert.setHeaderText("The transaction was not deleted");
+                        alert.show();
+                    } catch (UncheckedIOException ex) {
+                        Alert alert = new Alert(Alert.AlertType.ERROR, ex.getMessage());
+                        alert.setHeaderText("The transaction was deleted but the change could not be written to disk");
+                        alert.show();
+                    }
                     refresh();
                 });
             }
@@ -138,11 +201,27 @@ public class TransactionListView extends VBox implements ViewRefreshable {
             @Override
             protected void updateItem(Void item, boolean empty) {
                 super.updateItem(item, empty);
-                setGraphic(empty ? null : box);
+                setGraphic(empty || getTableRow() == null || getTableRow().getItem() == null ? null : box);
             }
         });
 
         table.getColumns().addAll(idCol, typeCol, tagCol, amountCol, expirationCol, dateCol, descCol, actionCol);
+        sortColumns.put(dateCol, SortKey.Column.DATE);
+        sortColumns.put(amountCol, SortKey.Column.AMOUNT);
+        sortColumns.put(tagCol, SortKey.Column.TAG);
+        sortColumns.put(typeCol, SortKey.Column.TYPE);
+        table.getColumns().forEach(col -> col.setSortable(sortColumns.containsKey(col)));
+        // the paged list cannot be sorted in place: the index sorts and the rows are reloaded
+        table.setSortPolicy(tv -> {
+            List<SortKey> order = new ArrayList<>();
+            for (TableColumn<Transaction, ?> col : tv.getSortOrder()) {
+                order.add(new SortKey(sortColumns.get(col), col.getSortType() == TableColumn.SortType.ASCENDING));
+            }
+            controller.getSortedTransactions().setOrder(order);
+            items.reload();
+            return true;
+        });
+        table.setItems(items);
 
         HBox legend = new HBox(15);
         legend.setAlignment(Pos.CENTER);
@@ -151,14 +230,54 @@ public class TransactionListView extends VBox implements ViewRefreshable {
                 createLegendItem(Color.GREEN, "Income"),
                 createLegendItem(Color.RED, "Expense"),
                 createLegendItem(Color.ORANGE, "Future"),
-                createLegendItem(Color.BLUE, "Recurrence")
+                createLegendItem(Color.BLUE, "Recurrence"),
+                createLegendItem(Color.web(ANOMALY_COLOR), "Unusual")
         );
 
-        getChildren().addAll(title, table, legend);
+        getChildren().addAll(title, searchField, table, legend);
 
         refresh();
     }
 
+    /**
+     * Creates a cell value factory showing a text computed from the row transaction,
+     * or an empty text for rows not available any more.
+     *
+     * @param text the function computing the text
+     * @return the cell value factory
+     */
+    private static Callback<TableColumn.CellDataFeatures<Transaction, String>, ObservableValue<String>> text(
+            Function<Transaction, String> text) {
+        return d -> new SimpleStringProperty(d.getValue() == null ? "" : text.apply(d.getValue()));
+    }
+
+    /**
+     * Returns the time left until a date as seen at the last clock tick,
+     * computed once per tick and date.
+     *
+     * @param date the date of a transaction
+     * @return the countdown, or "-" if the date is not in the future
+     */
+    private String countdown(LocalDate date) {
+        LocalDateTime now = clock.getNow();
+        if (!now.equals(countdownTick)) {
+            countdowns.clear();
+            countdownTick = now;
+        }
+        return countdowns.computeIfAbsent(date, d -> {
+            LocalDateTime txDate = d.atStartOfDay();
+            if (txDate.isAfter(now)) {
+                Duration diff = Duration.between(now, txDate);
+                long days = diff.toDays();
+                long hours = diff.toHours() % 24;
+                long minutes = diff.toMinutes() % 60;
+                return days + "d " + hours + "h " + minutes + "m";
+            } else {
+                return "-";
+            }
+        });
+    }
+
     private HBox createLegendItem(Color color, String text) {
         Rectangle rect = new Rectangle(15, 15, color);
         Label label = new Label(text);
@@ -168,16 +287,19 @@ public class TransactionListView extends VBox implements ViewRefreshable {
         return box;
     }
 
+    /**
+     * Reloads the rows from the sorted index, keeping only the transactions
+     * matching the search text, if any. The filter of the index is replaced only
+     * when the search text changed; otherwise the index has already applied the changes.
+     */
     @Override
     public void refresh() {
-        List<TransactionBase> baseList = controller.getAllTransactions();
-        table.setItems(FXCollections.observableArrayList(baseList.stream()
-                .map(t -> (Transaction) t)
-                .sorted((a, b) -> {
-                    String aTag = a.tags().isEmpty() ? "Other" : a.tags().get(0).name();
-                    String bTag = b.tags().isEmpty() ? "Other" : b.tags().get(0).name();
-                    return aTag.compareToIgnoreCase(bTag);
-                })
-                .toList()));
+        String search = searchField.getText();
+        if (search != null && search.isBlank()) search = null;
+        if (!Objects.equals(search, appliedSearch)) {
+            controller.filterSortedTransactions(search);
+            appliedSearch = search;
+        }
+        items.reload();
     }
 }
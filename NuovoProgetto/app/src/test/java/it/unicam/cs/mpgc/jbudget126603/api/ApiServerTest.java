@@ -0,0 +1,111 @@
+package it.unicam.cs.mpgc.jbudget126603.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import it.unicam.cs.mpgc.jbudget126603.persistency.XMLPersistenceManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ApiServerTest {
+
+    @TempDir
+    Path directory;
+
+    private static HttpResponse<String> send(ApiServer server, String method, String path, String body)
+            throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int status(ApiServer server, String method, String path) throws Exception {
+        return send(server, method, path, null).statusCode();
+    }
+
+    private static String saved(HttpResponse<?> response) {
+        return response.headers().firstValue("X-Ledger-Saved").orElse("true");
+    }
+
+    @Test
+    void onlyExactPathsAndTransactionIdsAreRouted() throws Exception {
+        AppController controller = new AppController(new XMLPersistenceManager(
+                directory.resolve("transactions.xml").toString(), directory.resolve("tags.xml").toString()));
+        controller.addTransaction(new Transaction("oo", Money.ofCents(100), LocalDate.of(2025, 1, 1), "",
+                Type.INCOME, List.of()));
+
+        try (ApiServer server = new ApiServer(controller, 0)) {
+            server.start();
+            assertEquals(200, status(server, "GET", "/api/transactions"));
+            assertEquals(200, status(server, "GET", "/api/transactions/oo"));
+            assertEquals(404, status(server, "GET", "/api/transactionsfoo"));
+            assertEquals(404, status(server, "DELETE", "/api/transactionsfoo"));
+            assertEquals(404, status(server, "GET", "/api/balancefoo"));
+            assertEquals(404, status(server, "GET", "/api/tags/1"));
+            assertEquals(200, status(server, "GET", "/api/balance"));
+        }
+        assertEquals(1, controller.getAllTransactions().size());
+    }
+
+    @Test
+    void changesWhoseSaveFailsAreReportedAsAppliedButNotSaved() throws Exception {
+        Path transactions = directory.resolve("transactions.xml");
+        AppController controller = new AppController(new XMLPersistenceManager(
+                transactions.toString(), directory.resolve("tags.xml").toString()));
+
+        try (ApiServer server = new ApiServer(controller, 0)) {
+            server.start();
+            Files.createDirectory(transactions);
+            String body = "{\"id\":\"a\",\"date\":\"2025-01-01\",\"amount\":10}";
+
+            HttpResponse<String> created = send(server, "POST", "/api/transactions", body);
+            assertEquals(201, created.statusCode());
+            assertEquals("false", saved(created));
+            assertEquals(200, status(server, "GET", "/api/transactions/a"));
+            assertEquals(409, send(server, "POST", "/api/transactions", body).statusCode());
+
+            Files.delete(transactions);
+            HttpResponse<String> deleted = send(server, "DELETE", "/api/transactions/a", null);
+            assertEquals(204, deleted.statusCode());
+            assertEquals("true", saved(deleted));
+        }
+        assertTrue(controller.getAllTransactions().isEmpty());
+        assertTrue(Files.readString(transactions).contains("<transactions"));
+    }
+
+    @Test
+    void oversizedNumbersAndDeepNestingAreBadRequests() throws Exception {
+        AppController controller = new AppController(new XMLPersistenceManager(
+                directory.resolve("transactions.xml").toString(), directory.resolve("tags.xml").toString()));
+
+        try (ApiServer server = new ApiServer(controller, 0)) {
+            server.start();
+            assertEquals(400, send(server, "POST", "/api/transactions",
+                    "{\"date\":\"2025-01-01\",\"amount\":1e999999999}").statusCode());
+            assertEquals(400, send(server, "POST", "/api/transactions",
+                    "{\"date\":\"2025-01-01\",\"amount\":1e-999999999}").statusCode());
+            assertEquals(400, send(server, "POST", "/api/transactions",
+                    "{\"date\":\"2025-01-01\",\"amount\":\"1e999999999\"}").statusCode());
+            assertEquals(400, send(server, "POST", "/api/transactions", "[".repeat(1 << 20)).statusCode());
+            assertEquals(400, send(server, "POST", "/api/transactions",
+                    "{\"tags\":" + "[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH) + "}").statusCode());
+            assertEquals(201, send(server, "POST", "/api/transactions",
+                    "{\"date\":\"2025-01-01\",\"amount\":1.5e2}").statusCode());
+        }
+        assertEquals(1, controller.getAllTransactions().size());
+        assertEquals(Money.ofCents(15000), controller.getAllTransactions().get(0).amount());
+    }
+}
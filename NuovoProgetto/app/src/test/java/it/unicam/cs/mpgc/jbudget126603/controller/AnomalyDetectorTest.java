@@ -0,0 +1,70 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AnomalyDetectorTest {
+
+    private static final Tag RENT = new Tag("1", "Rent", null);
+
+    private static Transaction expense(String id, double amount) {
+        return new Transaction(id, new Money(amount), LocalDate.of(2025, 1, 1), "", Type.EXPENSE, List.of(RENT));
+    }
+
+    @Test
+    void flagsOnlyExpensesAboveAConstantHistory() {
+        AnomalyDetector detector = new AnomalyDetector();
+        for (int i = 0; i < 10; i++) detector.transactionAdded(expense("r" + i, 800));
+
+        detector.transactionAdded(expense("low", 50));
+        detector.transactionAdded(expense("high", 1600));
+
+        assertFalse(detector.isAnomalous("low"));
+        assertTrue(detector.isAnomalous("high"));
+        assertTrue(Double.isFinite(detector.score("high").orElseThrow()));
+    }
+
+    @Test
+    void constantHistoryToleratesSmallIncreases() {
+        AnomalyDetector detector = new AnomalyDetector();
+        for (int i = 0; i < 10; i++) detector.transactionAdded(expense("r" + i, 800));
+
+        detector.transactionAdded(expense("cents", 800.04));
+        detector.transactionAdded(expense("indexed", 824));
+
+        assertFalse(detector.isAnomalous("cents"));
+        assertFalse(detector.isAnomalous("indexed"));
+    }
+
+    @Test
+    void flagsOutliersOfAVaryingHistory() {
+        AnomalyDetector detector = new AnomalyDetector();
+        for (int i = 0; i < 20; i++) detector.transactionAdded(expense("r" + i, 100 + i % 5));
+
+        detector.transactionAdded(expense("usual", 103));
+        detector.transactionAdded(expense("unusual", 500));
+
+        assertFalse(detector.isAnomalous("usual"));
+        assertTrue(detector.isAnomalous("unusual"));
+    }
+
+    @Test
+    void removingAnExpenseClearsItsFlag() {
+        AnomalyDetector detector = new AnomalyDetector();
+        for (int i = 0; i < 10; i++) detector.transactionAdded(expense("r" + i, 800));
+        Transaction high = expense("high", 1600);
+        detector.transactionAdded(high);
+
+        detector.transactionRemoved(high);
+
+        assertFalse(detector.isAnomalous("high"));
+    }
+}
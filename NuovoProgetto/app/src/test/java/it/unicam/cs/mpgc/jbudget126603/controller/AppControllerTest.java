@@ -0,0 +1,203 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class AppControllerTest {
+
+    private static Transaction transaction(String id, LocalDate date, long cents) {
+        return new Transaction(id, Money.ofCents(cents), date, "", Type.INCOME, List.of());
+    }
+
+    @Test
+    void rejectsUnsupportedDatesBeforeChangingTheLedger() {
+        InMemoryPersistenceManager persistence = new InMemoryPersistenceManager();
+        AppController controller = new AppController(persistence);
+        controller.addTransaction(transaction("a", LocalDate.of(2025, 1, 1), 100));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.addTransaction(transaction("far", LocalDate.of(+999_999_999, 12, 31), 100)));
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.updateTransaction("a", transaction("a", LocalDate.MIN, 100)));
+        assertThrows(IllegalArgumentException.class, () -> controller.importTransactions(List.of(
+                transaction("b", LocalDate.of(2025, 1, 2), 100), transaction("c", LocalDate.MAX, 100))));
+
+        assertEquals(List.of("a"), controller.getAllTransactions().stream().map(TransactionBase::id).toList());
+        assertEquals(100, controller.getBalanceByPeriod(new DateRange(null, null)).cents());
+        assertEquals(1, persistence.transactions.size());
+    }
+
+    @Test
+    void failingListenerLeavesNoTrace() {
+        AppController controller = new AppController(new InMemoryPersistenceManager());
+        controller.addTransactionListener(new TransactionListener() {
+            @Override
+            public void transactionAdded(TransactionBase transaction) {
+                if (transaction.id().equals("bad")) throw new IllegalStateException("refused");
+            }
+
+            @Override
+            public void transactionRemoved(TransactionBase transaction) {
+            }
+        });
+
+        assertThrows(IllegalStateException.class,
+                () -> controller.addTransaction(transaction("bad", LocalDate.of(2025, 1, 1), 100)));
+
+        assertTrue(controller.getAllTransactions().isEmpty());
+        assertTrue(controller.getTransactionById("bad").isEmpty());
+        assertEquals(0, controller.getBalanceByPeriod(new DateRange(null, null)).cents());
+    }
+
+    @Test
+    void updatesAndRemovalsKeepTheLedgerOrder() {
+        AppController controller = new AppController(new InMemoryPersistenceManager());
+        List<TransactionBase> expected = new ArrayList<>();
+        Random random = new Random(7);
+        int next = 0;
+        for (int step = 0; step < 3000; step++) {
+            int action = random.nextInt(4);
+            if (action < 2 || expected.isEmpty()) {
+                Transaction t = transaction("t" + next++, LocalDate.of(2025, 1, 1), random.nextInt(1000));
+                controller.addTransaction(t);
+                expected.add(t);
+            } else {
+                int i = random.nextInt(expected.size());
+                String id = expected.get(i).id();
+                if (action == 2) {
+                    String newId = random.nextBoolean() ? id : "t" + next++;
+                    Transaction t = transaction(newId, LocalDate.of(2025, 1, 2), random.nextInt(1000));
+                    assertTrue(controller.updateTransaction(id, t));
+                    expected.set(i, t);
+                } else {
+                    assertTrue(controller.removeTransaction(id));
+                    assertTrue(controller.getTransactionById(id).isEmpty());
+                    expected.remove(i);
+                }
+            }
+        }
+
+        assertEquals(expected, controller.getAllTransactions());
+        for (TransactionBase t : expected) assertEquals(t, controller.getTransactionById(t.id()).orElseThrow());
+        assertFalse(controller.removeTransaction("missing"));
+        assertFalse(controller.updateTransaction("missing", transaction("x", LocalDate.of(2025, 1, 1), 1)));
+    }
+
+    @Test
+    void repeatedIdsOfALoadedLedgerAreHandled() {
+        InMemoryPersistenceManager persistence = new InMemoryPersistenceManager();
+        Transaction first = transaction("a", LocalDate.of(2025, 1, 1), 100);
+        Transaction second = transaction("a", LocalDate.of(2025, 1, 2), 200);
+        Transaction other = transaction("b", LocalDate.of(2025, 1, 3), 300);
+        persistence.transactions.addAll(List.of(first, other, second));
+        AppController controller = new AppController(persistence);
+
+        Transaction updated = transaction("a", LocalDate.of(2025, 1, 4), 400);
+        assertTrue(controller.updateTransaction("a", updated));
+        assertEquals(List.of(updated, other, second), controller.getAllTransactions());
+
+        assertTrue(controller.removeTransaction("a"));
+        assertEquals(List.of(other), controller.getAllTransactions());
+        assertTrue(controller.updateTransaction("b", updated));
+        assertEquals(List.of(updated), controller.getAllTransactions());
+    }
+
+    @Test
+    void changeWhoseSaveFailsStaysAppliedAndIsWrittenNextTime() {
+        boolean[] failing = {true};
+        InMemoryPersistenceManager persistence = new InMemoryPersistenceManager() {
+            @Override
+            public void saveTransactions(List<TransactionBase> transactions) {
+                if (failing[0]) throw new UncheckedIOException(new IOException("disk full"));
+                super.saveTransactions(transactions);
+            }
+        };
+        AppController controller = new AppController(persistence);
+
+        assertThrows(UncheckedIOException.class,
+                () -> controller.addTransaction(transaction("a", LocalDate.of(2025, 1, 1), 100)));
+        assertTrue(controller.getTransactionById("a").isPresent());
+        assertFalse(controller.addTransaction(transaction("a", LocalDate.of(2025, 1, 1), 100)));
+
+        failing[0] = false;
+        controller.runBatch(() -> { });
+        assertEquals(List.of("a"), persistence.transactions.stream().map(TransactionBase::id).toList());
+    }
+
+    @Test
+    void failedSaveAfterACompleteLoadIsNotAFailedLoad() {
+        InMemoryPersistenceManager persistence = new InMemoryPersistenceManager() {
+            @Override
+            public void saveTransactions(List<TransactionBase> transactions) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        };
+        persistence.transactions.add(transaction("a", LocalDate.of(2025, 1, 1), 100));
+        AppController controller = new AppController(persistence, false);
+        // saved only once the load completes
+        controller.addTransaction(transaction("new", LocalDate.of(2025, 1, 2), 100));
+
+        assertThrows(UncheckedIOException.class, () -> controller.loadTransactions(10, count -> { }));
+
+        assertFalse(controller.isReadOnly());
+        assertEquals(2, controller.getAllTransactions().size());
+        // writable: the removal is applied, only writing it fails
+        assertThrows(UncheckedIOException.class, () -> controller.removeTransaction("new"));
+        assertEquals(1, controller.getAllTransactions().size());
+    }
+
+    @Test
+    void failedLoadLeavesTheLedgerReadOnlyAndUnsaved() {
+        InMemoryPersistenceManager persistence = new InMemoryPersistenceManager() {
+            @Override
+            public void loadTransactions(int batchSize, Consumer<List<TransactionBase>> batches) {
+                batches.accept(List.of(transaction("a", LocalDate.of(2025, 1, 1), 100)));
+                throw new UncheckedIOException(new IOException("truncated file"));
+            }
+        };
+        AppController controller = new AppController(persistence, false);
+        controller.addTransaction(transaction("new", LocalDate.of(2025, 1, 2), 100));
+
+        assertThrows(UncheckedIOException.class, () -> controller.loadTransactions(10, count -> { }));
+
+        assertTrue(controller.isReadOnly());
+        assertEquals(0, persistence.transactionSaves);
+        assertThrows(IllegalStateException.class,
+                () -> controller.addTransaction(transaction("b", LocalDate.of(2025, 1, 3), 100)));
+        assertThrows(IllegalStateException.class, () -> controller.removeTransaction("a"));
+        controller.runBatch(() -> { });
+        assertEquals(0, persistence.transactionSaves);
+        assertEquals(2, controller.getAllTransactions().size());
+    }
+
+    @Test
+    void completedLoadSavesTheChangesMadeMeanwhile() {
+        InMemoryPersistenceManager persistence = new InMemoryPersistenceManager();
+        persistence.transactions.add(transaction("a", LocalDate.of(2025, 1, 1), 100));
+        AppController controller = new AppController(persistence, false);
+        controller.addTransaction(transaction("new", LocalDate.of(2025, 1, 2), 100));
+        assertEquals(0, persistence.transactionSaves);
+
+        controller.loadTransactions(10, count -> { });
+
+        assertFalse(controller.isReadOnly());
+        assertEquals(1, persistence.transactionSaves);
+        assertEquals(2, persistence.transactions.size());
+    }
+}
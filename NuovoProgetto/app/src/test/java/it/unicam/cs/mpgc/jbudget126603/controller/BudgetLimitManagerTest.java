@@ -0,0 +1,83 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BudgetLimitManagerTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 3);
+
+    private static Transaction expense(String id, Tag tag, long cents) {
+        return new Transaction(id, Money.ofCents(cents), MONTH.atDay(10), "", Type.EXPENSE, List.of(tag));
+    }
+
+    @Test
+    void rollsExpensesUpToAncestors() {
+        InMemoryPersistenceManager persistence = new InMemoryPersistenceManager();
+        TagManager tags = new TagManager(persistence);
+        Tag home = tags.createTag("Home", null);
+        Tag rent = tags.createTag("Rent", home.id());
+        BudgetLimitManager limits = new BudgetLimitManager(tags, persistence);
+        List<BudgetLimitEvent> events = new ArrayList<>();
+        limits.addListener(events::add);
+        limits.setLimit(home.id(), Money.ofCents(1000));
+
+        limits.transactionAdded(expense("a", rent, 600));
+        limits.transactionAdded(expense("b", rent, 600));
+
+        assertEquals(1200, limits.getSpent(home.id(), MONTH).cents());
+        assertEquals(1200, limits.getSpent(rent.id(), MONTH).cents());
+        assertEquals(1, events.size());
+        assertEquals(home.id(), events.get(0).tagId());
+    }
+
+    @Test
+    void removalAfterReparentingDebitsTheTagsCredited() {
+        InMemoryPersistenceManager persistence = new InMemoryPersistenceManager();
+        TagManager tags = new TagManager(persistence);
+        Tag home = tags.createTag("Home", null);
+        Tag leisure = tags.createTag("Leisure", null);
+        Tag streaming = tags.createTag("Streaming", home.id());
+        BudgetLimitManager limits = new BudgetLimitManager(tags, persistence);
+        Transaction expense = expense("a", streaming, 1500);
+        limits.transactionAdded(expense);
+
+        tags.updateTagParent(streaming.id(), leisure.id());
+
+        assertEquals(0, limits.getSpent(home.id(), MONTH).cents());
+        assertEquals(1500, limits.getSpent(leisure.id(), MONTH).cents());
+
+        limits.transactionRemoved(expense);
+
+        assertEquals(0, limits.getSpent(home.id(), MONTH).cents());
+        assertEquals(0, limits.getSpent(leisure.id(), MONTH).cents());
+        assertEquals(0, limits.getSpent(streaming.id(), MONTH).cents());
+    }
+
+    @Test
+    void limitsSurviveARestart() {
+        InMemoryPersistenceManager persistence = new InMemoryPersistenceManager();
+        TagManager tags = new TagManager(persistence);
+        Tag home = tags.createTag("Home", null);
+        Tag food = tags.createTag("Food", null);
+        BudgetLimitManager limits = new BudgetLimitManager(tags, persistence);
+        limits.setLimit(home.id(), Money.ofCents(80_000));
+        limits.setLimit(food.id(), Money.ofCents(30_050));
+        limits.removeLimit(food.id());
+
+        BudgetLimitManager reloaded = new BudgetLimitManager(tags, persistence);
+
+        assertEquals(80_000, reloaded.getLimit(home.id()).orElseThrow().cents());
+        assertTrue(reloaded.getLimit(food.id()).isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class DescriptionIndexTest {
+
+    private static final List<String> DESCRIPTIONS = List.of(
+            "Caff\u00e8 al bar", "CAFFE' e cornetto", "Bar Sport", "Barbiere", "Spesa Esselunga",
+            "spesa settimanale", "Supermercato", "Affitto casa", "Casa, bollette e gas", "Stipendio",
+            "Cin\u00e9ma Ariston", "Pizzeria Da Mario", "", "  ", "Rimborso 730/2024", "Bar-ristorante");
+
+    private static final List<String> QUERIES = List.of(
+            "b", "ba", "BA", "bar", "arb", "rbi", "ar", "caffe", "caff\u00e8", "CAFF\u00c8", "cin\u00e9",
+            "cine", "inem", "spesa", "pesa", "sp", "spesa sett", "casa aff", "bar caff", "bar zzz", "zzz",
+            "e", "a", "730", "30", "202", "ristorante bar", "", " ", "--", "sa", "esa");
+
+    private static Set<String> ids(List<TransactionBase> transactions) {
+        return transactions.stream().map(TransactionBase::id).collect(Collectors.toSet());
+    }
+
+    private static void assertMatchesBruteForce(DescriptionIndex index, List<TransactionBase> rows) {
+        for (String query : QUERIES) {
+            Set<String> expected = rows.stream()
+                    .filter(t -> TextNormalizer.matches(query, t.description()))
+                    .map(TransactionBase::id).collect(Collectors.toSet());
+            TransactionQuery transactionQuery = TransactionQuery.builder().text(query).build();
+            assertEquals(expected, index.search(query), "'" + query + "'");
+            // blank text is dropped by the builder, leaving the index nothing to narrow
+            long estimate = index.estimateCandidates(transactionQuery);
+            if (transactionQuery.text() == null) {
+                assertEquals(-1, estimate, "'" + query + "'");
+            } else {
+                assertTrue(estimate >= expected.size(), "'" + query + "'");
+                assertEquals(expected, ids(index.candidates(transactionQuery)), "'" + query + "'");
+            }
+            assertEquals(expected, ids(transactionQuery.compile(TagTree.build(List.of()))
+                    .execute(rows, List.of(index))), "'" + query + "'");
+        }
+    }
+
+    @Test
+    void searchMatchesTheNormalizerOverAllRows() {
+        DescriptionIndex index = new DescriptionIndex();
+        List<TransactionBase> rows = new ArrayList<>();
+        for (int copy = 0; copy < 3; copy++) {
+            for (String description : DESCRIPTIONS) {
+                Transaction t = new Transaction("t" + rows.size(), Money.ofCents(100), LocalDate.of(2025, 1, 1),
+                        description, Type.EXPENSE, List.of());
+                index.transactionAdded(t);
+                rows.add(t);
+            }
+        }
+        assertMatchesBruteForce(index, rows);
+
+        // removing every copy of a description drops its words from the vocabulary
+        Set<String> removed = new HashSet<>(List.of("Barbiere", "Caff\u00e8 al bar", "Spesa Esselunga"));
+        for (TransactionBase t : List.copyOf(rows)) {
+            if (removed.contains(t.description()) || rows.indexOf(t) % 5 == 0) {
+                index.transactionRemoved(t);
+                rows.remove(t);
+            }
+        }
+        index.transactionRemoved(new Transaction("missing", Money.ofCents(100), LocalDate.of(2025, 1, 1),
+                "Bar", Type.EXPENSE, List.of()));
+        assertMatchesBruteForce(index, rows);
+
+        for (TransactionBase t : List.copyOf(rows)) {
+            index.transactionRemoved(t);
+            rows.remove(t);
+        }
+        assertMatchesBruteForce(index, rows);
+        assertTrue(index.search("").isEmpty());
+    }
+}
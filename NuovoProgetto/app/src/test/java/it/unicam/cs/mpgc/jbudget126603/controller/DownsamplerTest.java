@@ -0,0 +1,52 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DownsamplerTest {
+
+    @Test
+    void shortSeriesAreKeptWhole() {
+        assertArrayEquals(new int[] {0, 1, 2}, Downsampler.largestTriangleThreeBuckets(new long[] {5, 1, 7}, 3));
+        assertArrayEquals(new int[0], Downsampler.largestTriangleThreeBuckets(new long[0], 10));
+    }
+
+    @Test
+    void keepsTheEndsInOrder() {
+        Random random = new Random(5);
+        for (int n : new int[] {4, 100, 1001, 50_000}) {
+            long[] values = random.longs(n, -1_000_000, 1_000_000).toArray();
+            for (int threshold : new int[] {3, 10, 799}) {
+                int[] kept = Downsampler.largestTriangleThreeBuckets(values, threshold);
+
+                assertEquals(Math.min(n, threshold), kept.length);
+                assertEquals(0, kept[0]);
+                assertEquals(n - 1, kept[kept.length - 1]);
+                for (int i = 1; i < kept.length; i++) assertTrue(kept[i - 1] < kept[i], "not ascending at " + i);
+            }
+        }
+    }
+
+    @Test
+    void keepsPeaksOfAFlatSeries() {
+        long[] values = new long[10_000];
+        values[1234] = 1_000_000;
+        values[8765] = -1_000_000;
+
+        int[] kept = Downsampler.largestTriangleThreeBuckets(values, 50);
+
+        assertTrue(Arrays.stream(kept).anyMatch(i -> i == 1234));
+        assertTrue(Arrays.stream(kept).anyMatch(i -> i == 8765));
+    }
+
+    @Test
+    void rejectsThresholdsBelowThree() {
+        assertThrows(IllegalArgumentException.class, () -> Downsampler.largestTriangleThreeBuckets(new long[10], 2));
+    }
+}
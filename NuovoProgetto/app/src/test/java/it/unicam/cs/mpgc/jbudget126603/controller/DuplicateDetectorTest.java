@@ -0,0 +1,95 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class DuplicateDetectorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    private static Transaction transaction(String id, LocalDate date, long cents, String description) {
+        return new Transaction(id, Money.ofCents(cents), date, description, Type.EXPENSE, List.of());
+    }
+
+    @Test
+    void duplicatesMatchByContentWhateverTheId() {
+        DuplicateDetector detector = new DuplicateDetector();
+        detector.transactionAdded(transaction("a", DAY, 4250, "Caf\u00e9, Rent!"));
+
+        assertTrue(detector.isDuplicate(transaction("b", DAY, 4250, "cafe rent")));
+        assertFalse(detector.isDuplicate(transaction("c", DAY, 4251, "cafe rent")));
+        assertFalse(detector.isDuplicate(transaction("d", DAY.plusDays(1), 4250, "cafe rent")));
+        assertFalse(detector.isDuplicate(transaction("e", DAY, 4250, "cafe")));
+    }
+
+    @Test
+    void removalForgetsOnlyOneCopy() {
+        DuplicateDetector detector = new DuplicateDetector();
+        Transaction first = transaction("a", DAY, 100, "coffee");
+        Transaction second = transaction("b", DAY, 100, "coffee");
+        detector.transactionAdded(first);
+        detector.transactionAdded(second);
+
+        detector.transactionRemoved(first);
+        assertTrue(detector.isDuplicate(transaction("c", DAY, 100, "coffee")));
+        detector.transactionRemoved(second);
+        assertFalse(detector.isDuplicate(transaction("c", DAY, 100, "coffee")));
+        assertTrue(detector.findNearDuplicates(transaction("c", DAY, 100, "tea")).isEmpty());
+    }
+
+    @Test
+    void noDuplicateIsMissedAfterTheFilterGrows() {
+        DuplicateDetector detector = new DuplicateDetector();
+        List<Transaction> recorded = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Transaction t = transaction("t" + i, DAY.plusDays(i % 400), 100 + i, "payment " + i);
+            detector.transactionAdded(t);
+            recorded.add(t);
+        }
+
+        for (Transaction t : recorded) {
+            assertTrue(detector.isDuplicate(transaction("copy", t.date(), t.amount().cents(), t.description())));
+        }
+        assertFalse(detector.isDuplicate(transaction("new", DAY, 100, "payment 1")));
+    }
+
+    @Test
+    void nearDuplicatesMatchBruteForce() {
+        DuplicateDetector detector = new DuplicateDetector();
+        Random random = new Random(4);
+        List<Transaction> recorded = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Transaction t = transaction("t" + i, DAY.plusDays(random.nextInt(60)), 100 * (1 + random.nextInt(5)),
+                    "shop " + random.nextInt(3));
+            detector.transactionAdded(t);
+            recorded.add(t);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            Transaction probe = transaction("p" + i, DAY.plusDays(random.nextInt(60)), 100 * (1 + random.nextInt(5)),
+                    "shop " + random.nextInt(3));
+            Set<TransactionBase> expected = new HashSet<>();
+            for (Transaction t : recorded) {
+                long days = Math.abs(t.date().toEpochDay() - probe.date().toEpochDay());
+                if (t.amount().cents() == probe.amount().cents() && days <= DuplicateDetector.NEAR_DAYS
+                        && DuplicateDetector.fingerprint(t) != DuplicateDetector.fingerprint(probe)) {
+                    expected.add(t);
+                }
+            }
+            assertEquals(expected, new HashSet<>(detector.findNearDuplicates(probe)));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.persistency.PersistenceManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistence kept in memory, counting the saves.
+ */
+class InMemoryPersistenceManager implements PersistenceManager {
+
+    List<TransactionBase> transactions = new ArrayList<>();
+    List<Tag> tags = new ArrayList<>();
+    Map<String, Money> budgetLimits = new LinkedHashMap<>();
+    int transactionSaves;
+
+    @Override
+    public void saveTransactions(List<TransactionBase> transactions) {
+        this.transactions = new ArrayList<>(transactions);
+        transactionSaves++;
+    }
+
+    @Override
+    public List<TransactionBase> loadTransactions() {
+        return new ArrayList<>(transactions);
+    }
+
+    @Override
+    public void saveTags(List<Tag> tags) {
+        this.tags = new ArrayList<>(tags);
+    }
+
+    @Override
+    public List<Tag> loadTags() {
+        return new ArrayList<>(tags);
+    }
+
+    @Override
+    public void saveBudgetLimits(Map<String, Money> limits) {
+        this.budgetLimits = new LinkedHashMap<>(limits);
+    }
+
+    @Override
+    public Map<String, Money> loadBudgetLimits() {
+        return new LinkedHashMap<>(budgetLimits);
+    }
+}
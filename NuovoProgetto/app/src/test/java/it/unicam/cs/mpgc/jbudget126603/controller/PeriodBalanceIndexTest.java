@@ -0,0 +1,101 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.unicam.cs.mpgc.jbudget126603.model.DateRange;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PeriodBalanceIndexTest {
+
+    private static Transaction transaction(String id, LocalDate date, long cents, Type type) {
+        return new Transaction(id, Money.ofCents(cents), date, "", type, List.of());
+    }
+
+    private static long bruteForce(List<TransactionBase> all, LocalDate from, LocalDate to) {
+        return all.stream()
+                .filter(t -> (from == null || !t.date().isBefore(from)) && (to == null || !t.date().isAfter(to)))
+                .mapToLong(TransactionBase::signedCents)
+                .sum();
+    }
+
+    @Test
+    void matchesBruteForceWhileGrowingAndShrinking() {
+        Random random = new Random(42);
+        PeriodBalanceIndex index = new PeriodBalanceIndex();
+        List<TransactionBase> all = new ArrayList<>();
+        LocalDate base = LocalDate.of(2000, 1, 1);
+        for (int i = 0; i < 2000; i++) {
+            if (!all.isEmpty() && random.nextInt(4) == 0) {
+                index.transactionRemoved(all.remove(random.nextInt(all.size())));
+            } else {
+                // dates spread over two centuries, so the window grows on both sides
+                LocalDate date = base.plusDays(random.nextInt(73_000) - 36_500);
+                Transaction t = transaction("t" + i, date, 1 + random.nextInt(100_000),
+                        random.nextBoolean() ? Type.INCOME : Type.EXPENSE);
+                all.add(t);
+                index.transactionAdded(t);
+            }
+            if (i % 50 == 0) {
+                LocalDate from = base.plusDays(random.nextInt(80_000) - 40_000);
+                LocalDate to = from.plusDays(random.nextInt(20_000));
+                assertEquals(bruteForce(all, from, to), index.balanceCents(from, to));
+                assertEquals(bruteForce(all, null, to), index.balanceCents(null, to));
+                assertEquals(bruteForce(all, from, null), index.balanceCents(from, null));
+                assertEquals(bruteForce(all, null, null), index.balance(new DateRange(null, null)).cents());
+            }
+        }
+    }
+
+    @Test
+    void runningBalancesAccumulateDailyNetAmounts() {
+        PeriodBalanceIndex index = new PeriodBalanceIndex();
+        index.transactionAdded(transaction("a", LocalDate.of(2024, 12, 30), 1000, Type.INCOME));
+        index.transactionAdded(transaction("b", LocalDate.of(2025, 1, 1), 250, Type.EXPENSE));
+        index.transactionAdded(transaction("c", LocalDate.of(2025, 1, 3), 100, Type.INCOME));
+
+        assertArrayEquals(new long[]{1000, 750, 750, 850},
+                index.runningBalances(LocalDate.of(2024, 12, 31), LocalDate.of(2025, 1, 3)));
+        assertEquals(-250, index.dailyCents(LocalDate.of(2025, 1, 1)));
+        DateRange span = index.span().orElseThrow();
+        assertEquals(LocalDate.of(2024, 12, 30), span.start());
+        assertEquals(LocalDate.of(2025, 1, 3), span.end());
+    }
+
+    @Test
+    void acceptsTheWholeSupportedRange() {
+        PeriodBalanceIndex index = new PeriodBalanceIndex();
+        index.transactionAdded(transaction("a", LocalDate.of(2025, 6, 1), 500, Type.INCOME));
+        index.transactionAdded(transaction("max", PeriodBalanceIndex.MAX_DATE, 300, Type.EXPENSE));
+        index.transactionAdded(transaction("min", PeriodBalanceIndex.MIN_DATE, 100, Type.INCOME));
+
+        assertEquals(300, index.balanceCents(null, null));
+        assertEquals(600, index.balanceCents(null, LocalDate.of(9999, 12, 30)));
+        assertEquals(-300, index.balanceCents(LocalDate.of(9999, 12, 31), null));
+        assertEquals(500, index.balanceCents(LocalDate.of(2, 1, 1), LocalDate.of(9000, 1, 1)));
+    }
+
+    @Test
+    void rejectsUnsupportedDatesWithoutChanges() {
+        PeriodBalanceIndex index = new PeriodBalanceIndex();
+        index.transactionAdded(transaction("a", LocalDate.of(2025, 6, 1), 500, Type.INCOME));
+
+        assertFalse(PeriodBalanceIndex.supports(LocalDate.MAX));
+        assertTrue(PeriodBalanceIndex.supports(PeriodBalanceIndex.MAX_DATE));
+        assertThrows(IllegalArgumentException.class,
+                () -> index.transactionAdded(transaction("far", LocalDate.MAX, 100, Type.INCOME)));
+        assertEquals(500, index.balanceCents(null, null));
+        assertEquals(LocalDate.of(2025, 6, 1), index.span().orElseThrow().end());
+    }
+}
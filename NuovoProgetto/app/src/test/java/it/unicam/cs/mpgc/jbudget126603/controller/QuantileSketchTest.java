@@ -0,0 +1,96 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1};
+
+    private static long[] randomCents(Random random, int n) {
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            // mostly small amounts, some zeros and a long tail
+            values[i] = random.nextInt(20) == 0 ? 0 : (long) Math.exp(random.nextDouble() * 16);
+        }
+        return values;
+    }
+
+    private static void assertWithinAccuracy(long[] values, QuantileSketch sketch) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            long exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+            double estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= sketch.relativeAccuracy() * exact + 1e-9,
+                    "q=" + q + ": " + estimate + " instead of " + exact);
+        }
+    }
+
+    @Test
+    void quantilesAreWithinTheRelativeAccuracy() {
+        long[] values = randomCents(new Random(1), 20_000);
+        QuantileSketch sketch = new QuantileSketch();
+        for (long v : values) sketch.add(v);
+
+        assertEquals(values.length, sketch.count());
+        assertWithinAccuracy(values, sketch);
+    }
+
+    @Test
+    void removalIsExact() {
+        Random random = new Random(2);
+        long[] kept = randomCents(random, 5_000);
+        long[] removed = randomCents(random, 5_000);
+        QuantileSketch sketch = new QuantileSketch();
+        QuantileSketch expected = new QuantileSketch();
+        for (int i = 0; i < kept.length; i++) {
+            sketch.add(kept[i]);
+            sketch.add(removed[i]);
+            expected.add(kept[i]);
+        }
+
+        for (long v : removed) sketch.remove(v);
+
+        assertEquals(expected.count(), sketch.count());
+        for (double q : QUANTILES) assertEquals(expected.quantile(q), sketch.quantile(q));
+    }
+
+    @Test
+    void mergingEqualsAddingToOneSketch() {
+        Random random = new Random(3);
+        long[] first = randomCents(random, 3_000);
+        long[] second = randomCents(random, 3_000);
+        QuantileSketch a = new QuantileSketch();
+        QuantileSketch b = new QuantileSketch();
+        QuantileSketch both = new QuantileSketch();
+        for (long v : first) {
+            a.add(v);
+            both.add(v);
+        }
+        for (long v : second) {
+            b.add(v);
+            both.add(v);
+        }
+
+        a.merge(b);
+
+        assertEquals(both.count(), a.count());
+        for (double q : QUANTILES) assertEquals(both.quantile(q), a.quantile(q));
+        assertThrows(IllegalArgumentException.class, () -> a.merge(new QuantileSketch(0.05)));
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(1));
+    }
+}
@@ -0,0 +1,94 @@
+package it.unicam.cs.mpgc.jbudget126603.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.TransactionBase;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+class SortedTransactionIndexTest {
+
+    private static Transaction transaction(String id, Tag tag) {
+        return new Transaction(id, Money.ofCents(100), LocalDate.of(2025, 1, 1), "", Type.EXPENSE,
+                tag == null ? List.of() : List.of(tag));
+    }
+
+    private static List<String> ids(SortedTransactionIndex index) {
+        return index.page(0, index.size()).stream().map(TransactionBase::id).toList();
+    }
+
+    @Test
+    void matchesASortedAndFilteredCopy() {
+        TagManager tags = new TagManager(new InMemoryPersistenceManager());
+        List<Tag> tagList = List.of(tags.createTag("Food", null), tags.createTag("rent", null), tags.createTag("Car", null));
+        SortedTransactionIndex index = new SortedTransactionIndex(tags);
+        index.setOrder(List.of(new SortKey(SortKey.Column.DATE, false), new SortKey(SortKey.Column.AMOUNT, true)));
+        Predicate<TransactionBase> filter = t -> t.type() == Type.EXPENSE;
+        index.setFilter(filter, null);
+        Random random = new Random(6);
+        // arrival order breaks the ties, as in the index
+        List<TransactionBase> arrived = new ArrayList<>();
+        for (int step = 0; step < 2_000; step++) {
+            if (arrived.isEmpty() || random.nextInt(3) > 0) {
+                int tag = random.nextInt(tagList.size() + 1);
+                Transaction t = new Transaction("t" + step, Money.ofCents(random.nextInt(20)),
+                        LocalDate.of(2025, 1, 1).plusDays(random.nextInt(30)), "",
+                        random.nextBoolean() ? Type.INCOME : Type.EXPENSE,
+                        tag == tagList.size() ? List.of() : List.of(tagList.get(tag)));
+                index.transactionAdded(t);
+                arrived.add(t);
+            } else {
+                index.transactionRemoved(arrived.remove(random.nextInt(arrived.size())));
+            }
+        }
+
+        Comparator<TransactionBase> byDateDescending = Comparator.comparing(TransactionBase::date).reversed();
+        List<TransactionBase> expected = new ArrayList<>(arrived.stream().filter(filter).toList());
+        expected.sort(byDateDescending.thenComparing(t -> t.amount().cents()));
+        assertEquals(expected.size(), index.size());
+        assertEquals(arrived.size(), index.totalSize());
+        assertEquals(expected, index.page(0, index.size()));
+        assertEquals(expected.subList(10, 30), index.page(10, 20));
+        assertEquals(expected.subList(expected.size() - 5, expected.size()), index.page(expected.size() - 5, 20));
+
+        index.setOrder(List.of());
+        index.setFilter(null, null);
+        expected = new ArrayList<>(arrived);
+        expected.sort(Comparator.comparing(t -> t.tags().isEmpty()
+                ? SortedTransactionIndex.UNTAGGED_NAME.toLowerCase(Locale.ROOT) : t.tags().get(0).name().toLowerCase(Locale.ROOT)));
+        assertEquals(expected, index.page(0, index.size()));
+    }
+
+    @Test
+    void renamingATagReordersItsTransactions() {
+        TagManager tags = new TagManager(new InMemoryPersistenceManager());
+        Tag food = tags.createTag("Food", null);
+        Tag rent = tags.createTag("Rent", null);
+        SortedTransactionIndex index = new SortedTransactionIndex(tags);
+        // copies, as transactions loaded from a file hold tags of their own
+        index.transactionAdded(transaction("rent", new Tag(rent.id(), "Rent", null)));
+        index.transactionAdded(transaction("food", new Tag(food.id(), "Food", null)));
+        index.transactionAdded(transaction("untagged", null));
+        assertEquals(List.of("food", "untagged", "rent"), ids(index));
+        long version = index.version();
+
+        tags.updateTagName(food.id(), "Zoo");
+
+        assertNotEquals(version, index.version());
+        assertEquals(List.of("untagged", "rent", "food"), ids(index));
+        index.transactionAdded(transaction("food2", new Tag(food.id(), "Food", null)));
+        index.transactionRemoved(index.page(1, 1).get(0));
+        assertEquals(List.of("untagged", "food", "food2"), ids(index));
+    }
+}
@@ -0,0 +1,62 @@
+package it.unicam.cs.mpgc.jbudget126603.persistency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import it.unicam.cs.mpgc.jbudget126603.controller.AppController;
+import it.unicam.cs.mpgc.jbudget126603.model.Money;
+import it.unicam.cs.mpgc.jbudget126603.model.Tag;
+import it.unicam.cs.mpgc.jbudget126603.model.Transaction;
+import it.unicam.cs.mpgc.jbudget126603.model.Type;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class XMLPersistenceManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private static Transaction transaction(String id) {
+        return new Transaction(id, Money.ofCents(100), LocalDate.of(2025, 1, 1), "", Type.INCOME, List.of());
+    }
+
+    @Test
+    void savesThatCannotBeWrittenThrow() {
+        Path missing = directory.resolve("missing");
+        XMLPersistenceManager persistence = new XMLPersistenceManager(
+                missing.resolve("transactions.xml").toString(), missing.resolve("tags.xml").toString());
+
+        assertThrows(UncheckedIOException.class, () -> persistence.saveTransactions(List.of(transaction("a"))));
+        assertThrows(UncheckedIOException.class, () -> persistence.saveTags(List.of(new Tag("1", "Rent", null))));
+        assertThrows(UncheckedIOException.class, () -> persistence.saveBudgetLimits(Map.of("1", Money.ofCents(100))));
+    }
+
+    @Test
+    void damagedFilesCannotBeLoaded() throws Exception {
+        Path transactions = Files.writeString(directory.resolve("transactions.xml"), "<transactions><transaction");
+        XMLPersistenceManager persistence = new XMLPersistenceManager(
+                transactions.toString(), directory.resolve("tags.xml").toString());
+
+        assertThrows(UncheckedIOException.class, persistence::loadTransactions);
+        assertThrows(UncheckedIOException.class, () -> new AppController(persistence));
+    }
+
+    @Test
+    void controllerReportsAChangeThatCannotBeSaved() throws Exception {
+        Path transactions = directory.resolve("transactions.xml");
+        XMLPersistenceManager persistence = new XMLPersistenceManager(
+                transactions.toString(), directory.resolve("tags.xml").toString());
+        AppController controller = new AppController(persistence);
+        Files.createDirectory(transactions);
+
+        assertThrows(UncheckedIOException.class, () -> controller.addTransaction(transaction("a")));
+        assertThrows(UncheckedIOException.class, () -> controller.compact(false));
+        assertEquals(1, controller.getAllTransactions().size());
+    }
+}